@@ -0,0 +1,64 @@
+package benchmark;
+
+import app.model.Order;
+import app.model.ProcessedOrder;
+import app.mq.ProcessedOrderBinaryCodec;
+import app.mq.ProcessedOrderJsonEncoder;
+import app.worker.VatCalculator;
+import app.worker.VatEngine;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Stały zestaw zamówień dla benchmarków – kwoty jak w ORDERS (numeric(8,2)), ziarno stałe, żeby przebiegi były
+ * porównywalne. Benchmarki chodzą po tablicy cyklicznie, więc JIT nie zwinie wyniku do stałej.
+ */
+final class BenchmarkData {
+
+    static final int SIZE = 1024;
+    static final int MASK = SIZE - 1;
+
+    private BenchmarkData() {
+    }
+
+    static Order[] orders() {
+        Random random = new Random(42);
+        Order[] orders = new Order[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            orders[i] = new Order(new UUID(random.nextLong(), random.nextLong()),
+                    BigDecimal.valueOf(random.nextInt(100_000_000), 2), i % 4 == 0 ? "EUR" : "PLN");
+        }
+        return orders;
+    }
+
+    static ProcessedOrder[] processedOrders() {
+        VatCalculator calculator = new VatCalculator(VatEngine.BIGDECIMAL);
+        Order[] orders = orders();
+        ProcessedOrder[] processed = new ProcessedOrder[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            processed[i] = calculator.apply(orders[i]);
+        }
+        return processed;
+    }
+
+    static byte[][] jsonMessages() {
+        ProcessedOrderJsonEncoder encoder = new ProcessedOrderJsonEncoder();
+        ProcessedOrder[] processed = processedOrders();
+        byte[][] messages = new byte[SIZE][];
+        for (int i = 0; i < SIZE; i++) {
+            messages[i] = encoder.encode(processed[i]);
+        }
+        return messages;
+    }
+
+    static byte[][] binaryMessages() {
+        ProcessedOrder[] processed = processedOrders();
+        byte[][] messages = new byte[SIZE][];
+        for (int i = 0; i < SIZE; i++) {
+            messages[i] = ProcessedOrderBinaryCodec.encode(processed[i]);
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,64 @@
+package benchmark;
+
+import app.model.ProcessedOrder;
+import app.mq.ProcessedOrderBinaryCodec;
+import app.mq.ProcessedOrderJsonEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order message serialization as in {@code OrderWorker.buildRabbitMqMessage}, per format, plus the former
+ * {@code String.format} JSON as a baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageEncodingBenchmark {
+
+    private ProcessedOrder[]          orders;
+    private ProcessedOrderJsonEncoder jsonEncoder;
+    private int                       next;
+
+    @Setup
+    public void setUp() {
+        orders = BenchmarkData.processedOrders();
+        jsonEncoder = new ProcessedOrderJsonEncoder();
+    }
+
+    @Benchmark
+    public byte[] json() {
+        return jsonEncoder.encode(orders[next++ & BenchmarkData.MASK]);
+    }
+
+    @Benchmark
+    public byte[] binary() {
+        return ProcessedOrderBinaryCodec.encode(orders[next++ & BenchmarkData.MASK]);
+    }
+
+    @Benchmark
+    public byte[] jsonStringFormat() {
+        ProcessedOrder order = orders[next++ & BenchmarkData.MASK];
+        return String.format(
+                "{\"id\":\"%s\",\"originalAmount\":%s,\"currency\":\"%s\",\"vatAmount\":%s,\"totalAmount\":%s}",
+                order.id(),
+                order.originalAmount().toPlainString(),
+                order.currency(),
+                order.vatAmount().toPlainString(),
+                order.totalAmount().toPlainString()
+        ).getBytes(StandardCharsets.UTF_8);
+    }
+}
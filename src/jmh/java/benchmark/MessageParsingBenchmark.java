@@ -0,0 +1,87 @@
+package benchmark;
+
+import app.model.ProcessedOrder;
+import app.mq.MessageFormat;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.jayway.jsonpath.JsonPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of an order message: the way {@code RabbitMqSteps} does it in the tests (JsonPath per field, Gson tree),
+ * and the decoders of {@link MessageFormat}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageParsingBenchmark {
+
+    private String[] jsonStrings;
+    private byte[][] json;
+    private byte[][] binary;
+    private Gson     gson;
+    private int      next;
+
+    @Setup
+    public void setUp() {
+        json = BenchmarkData.jsonMessages();
+        binary = BenchmarkData.binaryMessages();
+        jsonStrings = new String[BenchmarkData.SIZE];
+        for (int i = 0; i < BenchmarkData.SIZE; i++) {
+            jsonStrings[i] = new String(json[i], StandardCharsets.UTF_8);
+        }
+        gson = new Gson();
+    }
+
+    /** Jak {@code RabbitMqSteps.assertProcessedOrder(String, Order)} – każde JsonPath.read parsuje dokument od nowa. */
+    @Benchmark
+    public ProcessedOrder jsonPath() {
+        String message = jsonStrings[next++ & BenchmarkData.MASK];
+        return new ProcessedOrder(
+                UUID.fromString(JsonPath.read(message, "$.id")),
+                new BigDecimal(JsonPath.read(message, "$.originalAmount").toString()),
+                JsonPath.read(message, "$.currency"),
+                new BigDecimal(JsonPath.read(message, "$.vatAmount").toString()),
+                new BigDecimal(JsonPath.read(message, "$.totalAmount").toString()));
+    }
+
+    /** Jak wariant z Gson w {@code RabbitMqSteps}. */
+    @Benchmark
+    public ProcessedOrder gson() {
+        JsonObject object = gson.fromJson(jsonStrings[next++ & BenchmarkData.MASK], JsonObject.class);
+        return new ProcessedOrder(
+                UUID.fromString(object.get("id").getAsString()),
+                object.get("originalAmount").getAsBigDecimal(),
+                object.get("currency").getAsString(),
+                object.get("vatAmount").getAsBigDecimal(),
+                object.get("totalAmount").getAsBigDecimal());
+    }
+
+    @Benchmark
+    public ProcessedOrder jsonDecoder() throws IOException {
+        return MessageFormat.JSON.decode(json[next++ & BenchmarkData.MASK]);
+    }
+
+    @Benchmark
+    public ProcessedOrder binaryDecoder() throws IOException {
+        return MessageFormat.BINARY.decode(binary[next++ & BenchmarkData.MASK]);
+    }
+}
@@ -0,0 +1,53 @@
+package benchmark;
+
+import app.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Order} construction including the record's validation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderBenchmark {
+
+    private UUID[]       ids;
+    private BigDecimal[] amounts;
+    private String[]     currencies;
+    private int          next;
+
+    @Setup
+    public void setUp() {
+        Order[] orders = BenchmarkData.orders();
+        ids = new UUID[BenchmarkData.SIZE];
+        amounts = new BigDecimal[BenchmarkData.SIZE];
+        currencies = new String[BenchmarkData.SIZE];
+        for (int i = 0; i < BenchmarkData.SIZE; i++) {
+            ids[i] = orders[i].id();
+            amounts[i] = orders[i].amount();
+            currencies[i] = orders[i].currency();
+        }
+    }
+
+    @Benchmark
+    public Order construct() {
+        int i = next++ & BenchmarkData.MASK;
+        return new Order(ids[i], amounts[i], currencies[i]);
+    }
+}
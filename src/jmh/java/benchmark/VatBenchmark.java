@@ -0,0 +1,49 @@
+package benchmark;
+
+import app.model.Order;
+import app.model.ProcessedOrder;
+import app.worker.VatCalculator;
+import app.worker.VatEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VAT of one order as the worker computes it ({@link VatCalculator#apply}), per {@link VatEngine}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VatBenchmark {
+
+    @Param({"BIGDECIMAL", "FIXED_POINT", "VERIFY"})
+    private VatEngine engine;
+
+    private VatCalculator calculator;
+    private Order[]       orders;
+    private int           next;
+
+    @Setup
+    public void setUp() {
+        calculator = new VatCalculator(engine);
+        orders = BenchmarkData.orders();
+    }
+
+    @Benchmark
+    public ProcessedOrder apply() {
+        return calculator.apply(orders[next++ & BenchmarkData.MASK]);
+    }
+}
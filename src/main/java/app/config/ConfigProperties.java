@@ -0,0 +1,37 @@
+package app.config;
+
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Typed lookups of optional properties, falling back to defaults when a key is missing or blank. Shared by the
+ * configuration records of every package ({@code worker.*} including {@code worker.cache.*}, {@code outbox.*},
+ * {@code rabbitmq.*}), so it lives outside all of them.
+ */
+public final class ConfigProperties {
+
+    private ConfigProperties() {
+    }
+
+    public static int intProperty(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    public static boolean booleanProperty(Properties props, String key, boolean defaultValue) {
+        String value = props.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    public static Duration millisProperty(Properties props, String key, Duration defaultValue) {
+        String value = props.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Duration.ofMillis(Long.parseLong(value.trim()));
+    }
+
+    public static <E extends Enum<E>> E enumProperty(Properties props, String key, E defaultValue) {
+        String value = props.getProperty(key);
+        return value == null || value.isBlank()
+                ? defaultValue
+                : Enum.valueOf(defaultValue.getDeclaringClass(), value.trim().toUpperCase());
+    }
+}
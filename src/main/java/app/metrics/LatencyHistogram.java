@@ -0,0 +1,159 @@
+package app.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency histogram with log-linear buckets in the style of HdrHistogram: exact up to 63 µs, above that 32 buckets per
+ * power of two (~3% resolution), up to ~19 hours. {@link #record(long)} is lock-free and allocation-free, so it can
+ * sit on every hot path.
+ * The rolling window is split into {@code slots} periods; a slot is cleared by the first recording of a new
+ * period, so the window always covers the last {@code slots - 1} full periods plus the current one. A recording
+ * that races with that clearing may be lost – acceptable for monitoring, not for accounting.
+ */
+public class LatencyHistogram implements LatencyHistogramMXBean {
+
+    private static final int  SUB_BUCKET_BITS = 5;
+    private static final int  SUB_BUCKETS     = 1 << SUB_BUCKET_BITS;
+    private static final int  LINEAR_LIMIT    = SUB_BUCKETS * 2;
+    private static final int  MAX_EXPONENT    = 35;
+    private static final long MAX_MICROS      = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int  BUCKETS         = LINEAR_LIMIT + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long   periodNanos;
+    private final Slot[] slots;
+    private final AtomicLong totalCount = new AtomicLong();
+    private final LongSupplier nanoClock;
+    private final long   createdAt;
+
+    /**
+     * @param window length of the rolling window, divided into {@code slots} periods
+     */
+    public LatencyHistogram(Duration window, int slots) {
+        this(window, slots, System::nanoTime);
+    }
+
+    LatencyHistogram(Duration window, int slots, LongSupplier nanoClock) {
+        if (slots < 2) {
+            throw new IllegalArgumentException("At least two slots are needed for a rolling window: " + slots);
+        }
+        if (window.toNanos() < slots) {
+            throw new IllegalArgumentException("Window too short: " + window);
+        }
+        this.periodNanos = window.toNanos() / slots;
+        this.nanoClock = nanoClock;
+        this.createdAt = nanoClock.getAsLong();
+        this.slots = new Slot[slots];
+        for (int i = 0; i < slots; i++) {
+            this.slots[i] = new Slot();
+        }
+    }
+
+    public void record(long nanos) {
+        long micros = Math.min(Math.max(nanos / 1000, 0), MAX_MICROS);
+        long period = Math.floorDiv(nanoClock.getAsLong(), periodNanos);
+        Slot slot = slots[(int) Math.floorMod(period, (long) slots.length)];
+        long seen = slot.period.get();
+        if (seen < period && slot.period.compareAndSet(seen, period)) {
+            slot.clear();
+        }
+        slot.counts.incrementAndGet(bucketOf(micros));
+        slot.sum.addAndGet(micros);
+        long max = slot.max.get();
+        while (micros > max && !slot.max.compareAndSet(max, micros)) {
+            max = slot.max.get();
+        }
+        totalCount.incrementAndGet();
+    }
+
+    public LatencySnapshot snapshot() {
+        long now = nanoClock.getAsLong();
+        long current = Math.floorDiv(now, periodNanos);
+        long[] merged = new long[BUCKETS];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for (Slot slot : slots) {
+            long period = slot.period.get();
+            if (period <= current - slots.length || period > current) {
+                continue;
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                long c = slot.counts.get(i);
+                merged[i] += c;
+                count += c;
+            }
+            sum += slot.sum.get();
+            max = Math.max(max, slot.max.get());
+        }
+        // Przez pierwsze okno przepustowość liczymy od utworzenia, nie od początku pustego okna.
+        long windowNanos = Math.min(periodNanos * slots.length, now - createdAt);
+        return new LatencySnapshot(windowNanos / 1e9, count, totalCount.get(),
+                windowNanos == 0 ? 0.0 : count * 1e9 / windowNanos,
+                count == 0 ? 0.0 : (double) sum / count,
+                percentile(merged, count, 0.50, max), percentile(merged, count, 0.90, max),
+                percentile(merged, count, 0.99, max), percentile(merged, count, 0.999, max), max);
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < LINEAR_LIMIT) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int mantissa = (int) (micros >>> shift);
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+    }
+
+    /** Największa wartość, która trafia do danego kubełka. */
+    static long highestValueOf(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long mantissa = (bucket - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    private static long percentile(long[] counts, long total, double quantile, long max) {
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * quantile));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public LatencySnapshot getSnapshot() {
+        return snapshot();
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    private static final class Slot {
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong period = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLong sum    = new AtomicLong();
+        private final AtomicLong max    = new AtomicLong();
+
+        private void clear() {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+            sum.set(0);
+            max.set(0);
+        }
+    }
+}
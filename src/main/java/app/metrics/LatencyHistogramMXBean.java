@@ -0,0 +1,14 @@
+package app.metrics;
+
+/**
+ * JMX view of a {@link LatencyHistogram}.
+ */
+public interface LatencyHistogramMXBean {
+
+    /**
+     * @return one {@link LatencySnapshot}, so every value of a poll describes the same moment: {@code windowSeconds},
+     *         {@code count} and {@code throughputPerSecond} over the rolling window, {@code totalCount} since creation,
+     *         {@code meanMicros}, {@code p50Micros} … {@code p999Micros} and {@code maxMicros}
+     */
+    LatencySnapshot getSnapshot();
+}
@@ -0,0 +1,29 @@
+package app.metrics;
+
+/**
+ * Percentiles of a {@link LatencyHistogram} over its rolling window, in microseconds.
+ * Percentiles are the upper bound of the bucket they fall into, i.e. at most ~3% above the recorded value.
+ * Plain numbers only, so JMX maps it to one composite value item by item (see {@link LatencyHistogramMXBean}).
+ *
+ * @param windowSeconds       time covered: the rolling window, or less while the histogram is younger than that
+ * @param count               values recorded in the window; {@code totalCount} since the histogram was created
+ * @param throughputPerSecond {@code count} divided by {@code windowSeconds}
+ */
+public record LatencySnapshot(double windowSeconds,
+                              long count,
+                              long totalCount,
+                              double throughputPerSecond,
+                              double meanMicros,
+                              long p50Micros,
+                              long p90Micros,
+                              long p99Micros,
+                              long p999Micros,
+                              long maxMicros) {
+
+    @Override
+    public String toString() {
+        return String.format("n=%d (%.1f/s), mean=%.2fms, p50=%.2fms, p90=%.2fms, p99=%.2fms, p99.9=%.2fms, max=%.2fms",
+                count, throughputPerSecond(), meanMicros / 1000.0, p50Micros / 1000.0, p90Micros / 1000.0,
+                p99Micros / 1000.0, p999Micros / 1000.0, maxMicros / 1000.0);
+    }
+}
@@ -1,14 +1,21 @@
 package app.model;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Objects;
 import java.util.UUID;
 
 /**
  * Represents an order before processing.
  * Using Java Records for concise, immutable data carriers.
+ * {@code createdAt} is set by the database on insert; {@code null} for orders that were not read back from it.
  */
-public record Order(UUID id, BigDecimal amount, String currency) {
+public record Order(UUID id, BigDecimal amount, String currency, Instant createdAt) {
+
+    public Order(UUID id, BigDecimal amount, String currency) {
+        this(id, amount, currency, null);
+    }
+
     public Order {
         Objects.requireNonNull(id, "id is required");
         Objects.requireNonNull(amount, "amount is required");
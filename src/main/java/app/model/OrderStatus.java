@@ -0,0 +1,11 @@
+package app.model;
+
+/**
+ * Processing state of an order, stored as text in {@code ORDERS.STATUS}.
+ */
+public enum OrderStatus {
+    PENDING,
+    PROCESSED,
+    /** The database refused to store the computed amounts (e.g. TOTAL_AMOUNT overflow); no longer claimed. */
+    FAILED
+}
@@ -0,0 +1,22 @@
+package app.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A message waiting in ORDER_OUTBOX to be relayed to RabbitMQ.
+ * {@code id} is assigned by the database and is {@code null} until the row is stored.
+ * {@code contentType} is the AMQP content-type of the payload, {@code null} for plain JSON.
+ * {@code orderCreatedAt} is only filled when the message is read for relaying (insert time of its order).
+ */
+public record OutboxMessage(Long id, UUID orderId, String exchange, String routingKey, byte[] payload,
+                            String contentType, Instant orderCreatedAt) {
+
+    public static OutboxMessage of(UUID orderId, String exchange, String routingKey, byte[] payload) {
+        return of(orderId, exchange, routingKey, payload, null);
+    }
+
+    public static OutboxMessage of(UUID orderId, String exchange, String routingKey, byte[] payload, String contentType) {
+        return new OutboxMessage(null, orderId, exchange, routingKey, payload, contentType, null);
+    }
+}
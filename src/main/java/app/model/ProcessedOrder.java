@@ -1,9 +1,17 @@
 package app.model;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.UUID;
 
 /**
  * Represents an order after being processed (e.g., with VAT applied).
+ * {@code createdAt} is the insert time of the order when known; it is not part of the message body.
  */
-public record ProcessedOrder(UUID id, BigDecimal originalAmount, String currency, BigDecimal vatAmount, BigDecimal totalAmount) {}
\ No newline at end of file
+public record ProcessedOrder(UUID id, BigDecimal originalAmount, String currency, BigDecimal vatAmount, BigDecimal totalAmount,
+                             Instant createdAt) {
+
+    public ProcessedOrder(UUID id, BigDecimal originalAmount, String currency, BigDecimal vatAmount, BigDecimal totalAmount) {
+        this(id, originalAmount, currency, vatAmount, totalAmount, null);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package app.mq;
+
+import com.rabbitmq.client.AMQP;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Several messages packed into one AMQP message.
+ * Body: {@code int count}, then per message {@code int length} followed by its bytes (big-endian).
+ * The {@value #FORMAT_HEADER} header marks the envelope so consumers can tell it from a single message;
+ * {@value #SIZE_HEADER} carries the message count for tooling that does not parse the body.
+ */
+public final class BatchEnvelope {
+
+    public static final String FORMAT_HEADER = "x-batch-format";
+    public static final String SIZE_HEADER   = "x-batch-size";
+    public static final String FORMAT        = "length-prefixed-v1";
+
+    private BatchEnvelope() {
+    }
+
+    public static byte[] pack(List<byte[]> messages) {
+        int size = Integer.BYTES;
+        for (byte[] message : messages) {
+            size += Integer.BYTES + message.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(messages.size());
+        for (byte[] message : messages) {
+            buffer.putInt(message.length);
+            buffer.put(message);
+        }
+        return buffer.array();
+    }
+
+    public static List<byte[]> unpack(byte[] body) {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / Integer.BYTES) {
+            throw new IllegalArgumentException("Corrupted batch envelope, message count: " + count);
+        }
+        List<byte[]> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IllegalArgumentException("Corrupted batch envelope, message " + i + " length: " + length);
+            }
+            byte[] message = new byte[length];
+            buffer.get(message);
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    /**
+     * @param contentType content-type of the packed messages (all share it), may be {@code null}
+     */
+    public static AMQP.BasicProperties properties(int messageCount, String contentType) {
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(FORMAT_HEADER, FORMAT);
+        headers.put(SIZE_HEADER, messageCount);
+        return new AMQP.BasicProperties.Builder().contentType(contentType).headers(headers).build();
+    }
+
+    public static boolean isBatch(AMQP.BasicProperties properties) {
+        Map<String, Object> headers = properties == null ? null : properties.getHeaders();
+        if (headers == null || headers.get(FORMAT_HEADER) == null) {
+            return false;
+        }
+        // Wartości nagłówków przychodzą z brokera jako LongString, nie String.
+        String format = headers.get(FORMAT_HEADER).toString();
+        if (!FORMAT.equals(format)) {
+            throw new IllegalArgumentException("Unsupported batch format: " + format);
+        }
+        return true;
+    }
+
+    /**
+     * Properties handed to the handler for every unpacked message: the envelope's own, without the batch headers.
+     */
+    static AMQP.BasicProperties messageProperties(AMQP.BasicProperties envelope) {
+        Map<String, Object> headers = new HashMap<>(envelope.getHeaders());
+        headers.remove(FORMAT_HEADER);
+        headers.remove(SIZE_HEADER);
+        return envelope.builder().headers(headers.isEmpty() ? null : headers).build();
+    }
+}
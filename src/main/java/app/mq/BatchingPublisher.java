@@ -0,0 +1,168 @@
+package app.mq;
+
+import com.rabbitmq.client.AMQP;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects messages for one exchange / routing key and publishes them as a {@link BatchEnvelope}:
+ * as soon as {@code maxMessages} are waiting, or {@code linger} after the first message of the batch arrived.
+ * Safe for concurrent use. {@link QueueConsumer} unpacks envelopes, so handlers still see single messages.
+ */
+public class BatchingPublisher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchingPublisher.class);
+
+    private final RabbitMqClient rabbitMqClient;
+    private final String         exchange;
+    private final String         routingKey;
+    private final int            maxMessages;
+    private final Duration       linger;
+    private final boolean        confirms;
+    private final String         contentType;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService lingerTimer;
+    private List<byte[]>            pending;
+    private CompletableFuture<Void> pendingSent = new CompletableFuture<>();
+    private long                    generation;
+
+    /**
+     * @param confirms publish envelopes with publisher confirms; the futures of {@link #add} then complete on the
+     *                 broker's ack instead of right after the envelope was written to the channel
+     * @param contentType content-type of the added messages, set on the envelope; may be {@code null}
+     */
+    public BatchingPublisher(RabbitMqClient rabbitMqClient, String exchange, String routingKey,
+                             int maxMessages, Duration linger, boolean confirms, String contentType) {
+        if (maxMessages <= 0) {
+            throw new IllegalArgumentException("Max messages per batch must be positive: " + maxMessages);
+        }
+        this.rabbitMqClient = rabbitMqClient;
+        this.exchange = exchange;
+        this.routingKey = routingKey;
+        this.maxMessages = maxMessages;
+        this.linger = linger;
+        this.confirms = confirms;
+        this.contentType = contentType;
+        this.pending = new ArrayList<>(maxMessages);
+        this.lingerTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "batch-linger-" + routingKey);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @return future of the envelope the message ends up in; fails when that envelope could not be published
+     */
+    public CompletableFuture<Void> add(byte[] message) {
+        Batch full = null;
+        CompletableFuture<Void> sent;
+        lock.lock();
+        try {
+            if (pending.isEmpty()) {
+                long batchGeneration = generation;
+                lingerTimer.schedule(() -> flush(batchGeneration), linger.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            pending.add(message);
+            sent = pendingSent;
+            if (pending.size() >= maxMessages) {
+                full = takeBatch();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (full != null) {
+            send(full);
+        }
+        return sent;
+    }
+
+    /**
+     * Publishes whatever is waiting right now.
+     */
+    public void flush() {
+        Batch batch = null;
+        lock.lock();
+        try {
+            if (!pending.isEmpty()) {
+                batch = takeBatch();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (batch != null) {
+            send(batch);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        lingerTimer.shutdownNow();
+    }
+
+    private void flush(long batchGeneration) {
+        Batch batch = null;
+        lock.lock();
+        try {
+            // Partia mogła już wyjść (pełna albo flush()) – wtedy timer tej partii nie ma nic do zrobienia.
+            if (generation == batchGeneration && !pending.isEmpty()) {
+                batch = takeBatch();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (batch != null) {
+            send(batch);
+        }
+    }
+
+    private Batch takeBatch() {
+        Batch batch = new Batch(pending, pendingSent);
+        pending = new ArrayList<>(maxMessages);
+        pendingSent = new CompletableFuture<>();
+        generation++;
+        return batch;
+    }
+
+    private void send(Batch batch) {
+        byte[] body = BatchEnvelope.pack(batch.messages());
+        AMQP.BasicProperties properties = MessageTimestamps.stamp(
+                BatchEnvelope.properties(batch.messages().size(), contentType), null, System.currentTimeMillis());
+        try {
+            if (confirms) {
+                rabbitMqClient.publishConfirmed(exchange, routingKey, properties, body)
+                        .whenComplete((ignored, failure) -> {
+                            if (failure == null) {
+                                batch.sent().complete(null);
+                            } else {
+                                batch.sent().completeExceptionally(failure);
+                            }
+                        });
+            } else {
+                rabbitMqClient.publishMessage(exchange, routingKey, properties, body);
+                batch.sent().complete(null);
+            }
+            log.debug("Batch of {} messages ({} bytes) published to '{}'.", batch.messages().size(), body.length, routingKey);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.sent().completeExceptionally(e);
+        } catch (Exception e) {
+            log.error("Failed to publish batch of {} messages to '{}': {}", batch.messages().size(), routingKey, e.getMessage(), e);
+            batch.sent().completeExceptionally(e);
+        }
+    }
+
+    private record Batch(List<byte[]> messages, CompletableFuture<Void> sent) {
+    }
+}
@@ -0,0 +1,143 @@
+package app.mq;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fixed set of publishing channels spread round-robin over a few connections.
+ * A channel is used by one thread at a time: {@link #borrow()} hands it out exclusively and {@link #release}
+ * returns it. Closed channels (e.g. after a broker error) are detected on borrow and replaced, together with
+ * their connection when that one is gone too.
+ */
+final class ChannelPool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ChannelPool.class);
+
+    private final ConnectionFactory connectionFactory;
+    private final ChannelPoolConfig config;
+    private final List<Connection>  connections = new ArrayList<>();
+    private final BlockingQueue<PooledChannel> idle = new LinkedBlockingQueue<>();
+    private final List<PooledChannel> all = new CopyOnWriteArrayList<>();
+
+    ChannelPool(ConnectionFactory connectionFactory, ChannelPoolConfig config) {
+        this.connectionFactory = connectionFactory;
+        this.config = config;
+    }
+
+    synchronized void open() throws IOException, TimeoutException {
+        for (int i = 0; i < config.connections(); i++) {
+            connections.add(connectionFactory.newConnection("publisher-" + i));
+        }
+        for (int i = 0; i < config.channels(); i++) {
+            PooledChannel pc = new PooledChannel(i % config.connections(), connections.get(i % config.connections()).createChannel());
+            all.add(pc);
+            idle.add(pc);
+        }
+        log.info("Publisher channel pool opened: {} channel(s) over {} connection(s).", config.channels(), config.connections());
+    }
+
+    PooledChannel borrow() throws IOException, InterruptedException {
+        PooledChannel pc = idle.poll(config.borrowTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        if (pc == null) {
+            throw new IOException("No publisher channel available within " + config.borrowTimeout());
+        }
+        if (pc.channel.isOpen()) {
+            return pc;
+        }
+        try {
+            return replace(pc);
+        } catch (IOException | RuntimeException e) {
+            // Slot wraca do puli – kolejne wypożyczenie spróbuje odtworzyć kanał jeszcze raz.
+            idle.add(pc);
+            throw e;
+        }
+    }
+
+    void release(PooledChannel pc) {
+        idle.add(pc);
+    }
+
+    int unconfirmedCount() {
+        int count = 0;
+        for (PooledChannel pc : all) {
+            PublisherConfirmTracker tracker = pc.tracker;
+            count += tracker == null ? 0 : tracker.outstandingCount();
+        }
+        return count;
+    }
+
+    private PooledChannel replace(PooledChannel dead) throws IOException {
+        Channel channel;
+        synchronized (this) {
+            Connection connection = connections.get(dead.connectionIndex);
+            if (!connection.isOpen()) {
+                try {
+                    connection = connectionFactory.newConnection("publisher-" + dead.connectionIndex);
+                } catch (TimeoutException e) {
+                    throw new IOException("Could not reopen publisher connection " + dead.connectionIndex, e);
+                }
+                connections.set(dead.connectionIndex, connection);
+                log.warn("Publisher connection {} was closed and has been reopened.", dead.connectionIndex);
+            }
+            channel = connection.createChannel();
+        }
+        PooledChannel fresh = new PooledChannel(dead.connectionIndex, channel);
+        all.remove(dead);
+        all.add(fresh);
+        log.warn("Replaced closed publisher channel on connection {}.", dead.connectionIndex);
+        return fresh;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Connection connection : connections) {
+            try {
+                if (connection.isOpen()) {
+                    connection.close();
+                }
+            } catch (IOException e) {
+                log.warn("Problem while closing publisher connection", e);
+            }
+        }
+        connections.clear();
+        all.clear();
+        idle.clear();
+    }
+
+    /**
+     * Channel of the pool; switched to confirm mode the first time a confirmed publish needs it.
+     */
+    final class PooledChannel {
+        private final int     connectionIndex;
+        private final Channel channel;
+        private volatile PublisherConfirmTracker tracker;
+
+        private PooledChannel(int connectionIndex, Channel channel) {
+            this.connectionIndex = connectionIndex;
+            this.channel = channel;
+        }
+
+        Channel channel() {
+            return channel;
+        }
+
+        PublisherConfirmTracker confirms() throws IOException {
+            if (tracker == null) {
+                tracker = new PublisherConfirmTracker(channel, config.maxUnconfirmed());
+            }
+            return tracker;
+        }
+    }
+}
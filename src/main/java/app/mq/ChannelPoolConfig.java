@@ -0,0 +1,46 @@
+package app.mq;
+
+import java.time.Duration;
+import java.util.Properties;
+
+import static app.config.ConfigProperties.intProperty;
+import static app.config.ConfigProperties.millisProperty;
+
+/**
+ * Publishing channels of {@link RabbitMqClient} ({@code rabbitmq.publisher.*} keys).
+ *
+ * @param connections    connections the channels are spread over (one connection = one socket and I/O thread)
+ * @param channels       pooled channels in total; roughly the number of threads publishing at once
+ * @param borrowTimeout  how long a publish waits for a free channel before failing
+ * @param maxUnconfirmed confirm-mode publishes that may wait for the broker, per channel
+ */
+public record ChannelPoolConfig(int connections, int channels, Duration borrowTimeout, int maxUnconfirmed) {
+
+    public ChannelPoolConfig {
+        if (connections <= 0) {
+            throw new IllegalArgumentException("Connections must be positive: " + connections);
+        }
+        if (channels < connections) {
+            throw new IllegalArgumentException("Need at least one channel per connection: " + channels + " < " + connections);
+        }
+        if (borrowTimeout == null || borrowTimeout.isNegative() || borrowTimeout.isZero()) {
+            throw new IllegalArgumentException("Borrow timeout must be positive: " + borrowTimeout);
+        }
+        if (maxUnconfirmed <= 0) {
+            throw new IllegalArgumentException("Max unconfirmed messages must be positive: " + maxUnconfirmed);
+        }
+    }
+
+    public static ChannelPoolConfig defaults() {
+        return new ChannelPoolConfig(1, 4, Duration.ofSeconds(5), 1000);
+    }
+
+    public static ChannelPoolConfig fromProperties(Properties props) {
+        ChannelPoolConfig d = defaults();
+        return new ChannelPoolConfig(
+                intProperty(props, "rabbitmq.publisher.connections", d.connections()),
+                intProperty(props, "rabbitmq.publisher.channels", d.channels()),
+                millisProperty(props, "rabbitmq.publisher.borrow.timeout.ms", d.borrowTimeout()),
+                intProperty(props, "rabbitmq.confirms.max.unconfirmed", d.maxUnconfirmed()));
+    }
+}
@@ -0,0 +1,33 @@
+package app.mq;
+
+import java.time.Duration;
+
+/**
+ * Settings of {@link QueueConsumer}.
+ *
+ * @param prefetch         unacked messages the broker may push to one channel
+ * @param ackBatchSize     handled messages acked together with one {@code multiple=true} ack
+ * @param ackFlushInterval longest time a handled message waits for its ack when the batch does not fill up
+ * @param channels         consumer channels, each with its own dispatch thread
+ */
+public record ConsumerConfig(int prefetch, int ackBatchSize, Duration ackFlushInterval, int channels) {
+
+    public ConsumerConfig {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("Prefetch must be positive: " + prefetch);
+        }
+        if (ackBatchSize <= 0 || ackBatchSize > prefetch) {
+            throw new IllegalArgumentException("Ack batch size must be between 1 and prefetch (" + prefetch + "): " + ackBatchSize);
+        }
+        if (ackFlushInterval == null || ackFlushInterval.isNegative() || ackFlushInterval.isZero()) {
+            throw new IllegalArgumentException("Ack flush interval must be positive: " + ackFlushInterval);
+        }
+        if (channels <= 0) {
+            throw new IllegalArgumentException("Consumer channels must be positive: " + channels);
+        }
+    }
+
+    public static ConsumerConfig defaults() {
+        return new ConsumerConfig(250, 50, Duration.ofMillis(100), 1);
+    }
+}
@@ -0,0 +1,54 @@
+package app.mq;
+
+import app.model.ProcessedOrder;
+import com.rabbitmq.client.AMQP;
+
+import java.io.IOException;
+
+/**
+ * Wire format of processed-order messages, identified by the AMQP {@code content-type}.
+ * A message without content-type is JSON (the original format).
+ */
+public enum MessageFormat {
+
+    /** {@code {"id":…,"originalAmount":…}} – see {@link ProcessedOrderJsonEncoder}. */
+    JSON("application/json"),
+
+    /** Fixed 45-byte layout – see {@link ProcessedOrderBinaryCodec}. */
+    BINARY(ProcessedOrderBinaryCodec.CONTENT_TYPE);
+
+    private final String contentType;
+    private final AMQP.BasicProperties properties;
+
+    MessageFormat(String contentType) {
+        this.contentType = contentType;
+        this.properties = new AMQP.BasicProperties.Builder().contentType(contentType).build();
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    /** Properties to publish a message of this format with. */
+    public AMQP.BasicProperties properties() {
+        return properties;
+    }
+
+    public static MessageFormat of(AMQP.BasicProperties props) {
+        return forContentType(props == null ? null : props.getContentType());
+    }
+
+    public static MessageFormat forContentType(String contentType) {
+        if (contentType == null || JSON.contentType.equals(contentType)) {
+            return JSON;
+        }
+        if (BINARY.contentType.equals(contentType)) {
+            return BINARY;
+        }
+        throw new IllegalArgumentException("Unsupported order message content-type: " + contentType);
+    }
+
+    public ProcessedOrder decode(byte[] body) throws IOException {
+        return this == BINARY ? ProcessedOrderBinaryCodec.decode(body) : ProcessedOrderJsonDecoder.decode(body);
+    }
+}
@@ -0,0 +1,12 @@
+package app.mq;
+
+import com.rabbitmq.client.AMQP;
+
+/**
+ * Callback of {@link QueueConsumer}. A message is acked only after the handler returned normally;
+ * an exception nacks it (requeued once, dropped when it was already redelivered).
+ */
+@FunctionalInterface
+public interface MessageHandler {
+    void onMessage(byte[] body, AMQP.BasicProperties properties) throws Exception;
+}
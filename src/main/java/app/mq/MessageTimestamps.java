@@ -0,0 +1,63 @@
+package app.mq;
+
+import com.rabbitmq.client.AMQP;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Timing metadata of order messages: the AMQP {@code timestamp} property (publish time, whole seconds per spec) plus
+ * millisecond headers {@value #CREATED_AT_HEADER} (insert time of the order in ORDERS) and
+ * {@value #PUBLISHED_AT_HEADER}, both epoch milliseconds. Messages packed into a {@link BatchEnvelope} only carry
+ * the publish time of the envelope – the envelope has no per-message headers.
+ */
+public final class MessageTimestamps {
+
+    public static final String CREATED_AT_HEADER   = "x-created-at";
+    public static final String PUBLISHED_AT_HEADER = "x-published-at";
+
+    private MessageTimestamps() {
+    }
+
+    /**
+     * @param base      properties to copy (content-type, other headers); may be {@code null}
+     * @param createdAt insert time of the order; the header is left out when {@code null}
+     */
+    public static AMQP.BasicProperties stamp(AMQP.BasicProperties base, Instant createdAt, long publishedAtMillis) {
+        AMQP.BasicProperties.Builder builder = base == null ? new AMQP.BasicProperties.Builder() : base.builder();
+        Map<String, Object> headers = base == null || base.getHeaders() == null
+                ? new HashMap<>(4)
+                : new HashMap<>(base.getHeaders());
+        if (createdAt != null) {
+            headers.put(CREATED_AT_HEADER, createdAt.toEpochMilli());
+        }
+        headers.put(PUBLISHED_AT_HEADER, publishedAtMillis);
+        return builder.timestamp(new Date(publishedAtMillis)).headers(headers).build();
+    }
+
+    /**
+     * @return insert time of the order in epoch milliseconds, or {@code -1} when the message does not carry it
+     */
+    public static long createdAtMillis(AMQP.BasicProperties properties) {
+        return header(properties, CREATED_AT_HEADER);
+    }
+
+    /**
+     * @return publish time in epoch milliseconds (the AMQP timestamp when the header is missing), or {@code -1}
+     */
+    public static long publishedAtMillis(AMQP.BasicProperties properties) {
+        long published = header(properties, PUBLISHED_AT_HEADER);
+        if (published < 0 && properties != null && properties.getTimestamp() != null) {
+            return properties.getTimestamp().getTime();
+        }
+        return published;
+    }
+
+    private static long header(AMQP.BasicProperties properties, String name) {
+        Map<String, Object> headers = properties == null ? null : properties.getHeaders();
+        Object value = headers == null ? null : headers.get(name);
+        return value instanceof Number number ? number.longValue() : -1;
+    }
+}
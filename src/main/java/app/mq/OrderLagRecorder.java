@@ -0,0 +1,90 @@
+package app.mq;
+
+import app.metrics.LatencyHistogram;
+import com.rabbitmq.client.AMQP;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consumer-side lag of order messages, from the {@link MessageTimestamps} they carry: insert → publish (order
+ * inserted into ORDERS until its message was published) and publish → consume (until the consumer got it).
+ * Both are differences of wall clocks on different hosts, so clock skew shows up 1:1 – negative lags count as 0.
+ * Use {@link #wrap(MessageHandler)} around the handler given to {@link RabbitMqClient#startConsumer}.
+ * JMX names: {@code app.mq:type=OrderLag,name=<name>,path=insertToPublish|publishToConsume}.
+ */
+public class OrderLagRecorder {
+
+    public static final String DOMAIN = "app.mq";
+
+    private static final int WINDOW_SLOTS = 6;
+
+    private final LatencyHistogram insertToPublish;
+    private final LatencyHistogram publishToConsume;
+    private final List<ObjectName> registered = new ArrayList<>();
+
+    public OrderLagRecorder(Duration window) {
+        this.insertToPublish = new LatencyHistogram(window, WINDOW_SLOTS);
+        this.publishToConsume = new LatencyHistogram(window, WINDOW_SLOTS);
+    }
+
+    public void record(AMQP.BasicProperties properties) {
+        long now = System.currentTimeMillis();
+        long published = MessageTimestamps.publishedAtMillis(properties);
+        if (published < 0) {
+            return;
+        }
+        publishToConsume.record(Math.max(0, now - published) * 1_000_000);
+        long created = MessageTimestamps.createdAtMillis(properties);
+        if (created >= 0) {
+            insertToPublish.record(Math.max(0, published - created) * 1_000_000);
+        }
+    }
+
+    /**
+     * @return handler that records the lag of every message before passing it on to {@code handler}
+     */
+    public MessageHandler wrap(MessageHandler handler) {
+        return (body, properties) -> {
+            record(properties);
+            handler.onMessage(body, properties);
+        };
+    }
+
+    public LatencyHistogram insertToPublish() {
+        return insertToPublish;
+    }
+
+    public LatencyHistogram publishToConsume() {
+        return publishToConsume;
+    }
+
+    public synchronized void register(MBeanServer server, String name) throws JMException {
+        register(server, name, "insertToPublish", insertToPublish);
+        register(server, name, "publishToConsume", publishToConsume);
+    }
+
+    public synchronized void unregister(MBeanServer server) throws JMException {
+        for (ObjectName objectName : registered) {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        }
+        registered.clear();
+    }
+
+    private void register(MBeanServer server, String name, String path, LatencyHistogram histogram) throws JMException {
+        ObjectName objectName = new ObjectName(DOMAIN + ":type=OrderLag,name=" + ObjectName.quote(name) + ",path=" + path);
+        server.registerMBean(histogram, objectName);
+        registered.add(objectName);
+    }
+
+    @Override
+    public String toString() {
+        return "insertToPublish[" + insertToPublish + "], publishToConsume[" + publishToConsume + "]";
+    }
+}
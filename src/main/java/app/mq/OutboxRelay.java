@@ -0,0 +1,81 @@
+package app.mq;
+
+import app.repository.OutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Properties;
+
+import static app.config.ConfigProperties.intProperty;
+import static app.config.ConfigProperties.millisProperty;
+
+/**
+ * Drains ORDER_OUTBOX to RabbitMQ in large batches. Rows are deleted only after the broker confirmed the
+ * whole batch; a failed batch stays in the table and is retried, so delivery is at-least-once.
+ */
+public class OutboxRelay implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxRepository outboxRepository;
+    private final RabbitMqClient   rabbitMqClient;
+    private final int              batchSize;
+    private final Duration         pollInterval;
+    private final Duration         confirmTimeout;
+
+    private volatile boolean running = true;
+
+    public OutboxRelay(OutboxRepository outboxRepository, RabbitMqClient rabbitMqClient,
+                       int batchSize, Duration pollInterval, Duration confirmTimeout) {
+        this.outboxRepository = outboxRepository;
+        this.rabbitMqClient = rabbitMqClient;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.confirmTimeout = confirmTimeout;
+    }
+
+    /**
+     * Relay configured from {@code outbox.relay.*} properties (batch size, poll and confirm timeout in ms).
+     */
+    public static OutboxRelay fromProperties(OutboxRepository outboxRepository, RabbitMqClient rabbitMqClient,
+                                             Properties props) {
+        return new OutboxRelay(outboxRepository, rabbitMqClient,
+                intProperty(props, "outbox.relay.batch.size", 500),
+                millisProperty(props, "outbox.relay.poll.ms", Duration.ofMillis(100)),
+                millisProperty(props, "outbox.relay.confirm.timeout.ms", Duration.ofSeconds(5)));
+    }
+
+    @Override
+    public void run() {
+        log.info("OutboxRelay started (batch size {}).", batchSize);
+        while (running) {
+            try {
+                int relayed = outboxRepository.drain(batchSize,
+                        messages -> rabbitMqClient.publishAndConfirm(messages, confirmTimeout));
+                if (relayed > 0) {
+                    log.info("Relayed {} outbox messages.", relayed);
+                }
+                if (relayed < batchSize) {
+                    Thread.sleep(pollInterval.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Exception e) {
+                log.error("Error in OutboxRelay, batch will be retried: {}", e.getMessage(), e);
+                try {
+                    Thread.sleep(pollInterval.multipliedBy(10).toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                }
+            }
+        }
+        log.info("OutboxRelay stopped.");
+    }
+
+    public void stop() {
+        running = false;
+    }
+}
@@ -0,0 +1,86 @@
+package app.mq;
+
+import app.model.ProcessedOrder;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Compact binary form of a processed order (big-endian, 45 bytes):
+ * <pre>
+ * version:1 | id:16 (msb, lsb) | currency:3 (ASCII) | scale:1 | originalAmount:8 | vatAmount:8 | totalAmount:8
+ * </pre>
+ * Amounts are unscaled longs sharing one scale (the largest of the three, normally 2).
+ * A decoder rejects versions it does not know, so the layout can evolve under a new version byte.
+ */
+public final class ProcessedOrderBinaryCodec {
+
+    public static final String CONTENT_TYPE = "application/vnd.order.processed+binary";
+    public static final byte   VERSION      = 1;
+    public static final int    SIZE         = 1 + 16 + 3 + 1 + 3 * Long.BYTES;
+
+    private ProcessedOrderBinaryCodec() {
+    }
+
+    /**
+     * @throws IllegalArgumentException when the currency is not 3 ASCII characters or an amount does not fit
+     *                                  into a long at the common scale
+     */
+    public static byte[] encode(ProcessedOrder order) {
+        int scale = Math.max(0, Math.max(order.originalAmount().scale(),
+                Math.max(order.vatAmount().scale(), order.totalAmount().scale())));
+        if (scale > 0xFF) {
+            throw new IllegalArgumentException("Scale too large for binary order message: " + scale);
+        }
+        String currency = order.currency();
+        if (currency.length() != 3) {
+            throw new IllegalArgumentException("Currency must be a 3-letter code: " + currency);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+        buffer.put(VERSION);
+        buffer.putLong(order.id().getMostSignificantBits());
+        buffer.putLong(order.id().getLeastSignificantBits());
+        for (int i = 0; i < 3; i++) {
+            char c = currency.charAt(i);
+            if (c >= 0x80) {
+                throw new IllegalArgumentException("Currency must be ASCII: " + currency);
+            }
+            buffer.put((byte) c);
+        }
+        buffer.put((byte) scale);
+        buffer.putLong(unscaled(order.originalAmount(), scale));
+        buffer.putLong(unscaled(order.vatAmount(), scale));
+        buffer.putLong(unscaled(order.totalAmount(), scale));
+        return buffer.array();
+    }
+
+    public static ProcessedOrder decode(byte[] body) {
+        if (body.length == 0 || body[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary order message version: "
+                    + (body.length == 0 ? "<empty>" : body[0]));
+        }
+        if (body.length != SIZE) {
+            throw new IllegalArgumentException("Binary order message v" + VERSION + " must have " + SIZE
+                    + " bytes, got " + body.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(body, 1, SIZE - 1);
+        UUID id = new UUID(buffer.getLong(), buffer.getLong());
+        char[] currency = {(char) buffer.get(), (char) buffer.get(), (char) buffer.get()};
+        int scale = buffer.get() & 0xFF;
+        return new ProcessedOrder(id,
+                BigDecimal.valueOf(buffer.getLong(), scale),
+                new String(currency),
+                BigDecimal.valueOf(buffer.getLong(), scale),
+                BigDecimal.valueOf(buffer.getLong(), scale));
+    }
+
+    private static long unscaled(BigDecimal amount, int scale) {
+        try {
+            // Skala tylko rośnie (albo ujemna → 0), więc setScale nie zaokrągla.
+            return amount.setScale(scale).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount does not fit into a binary order message: " + amount, e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package app.mq;
+
+import app.model.ProcessedOrder;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Reads the JSON order message (streaming parser, amounts keep their scale, e.g. {@code 10.90}).
+ */
+final class ProcessedOrderJsonDecoder {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private ProcessedOrderJsonDecoder() {
+    }
+
+    static ProcessedOrder decode(byte[] body) throws IOException {
+        UUID id = null;
+        BigDecimal originalAmount = null;
+        BigDecimal vatAmount = null;
+        BigDecimal totalAmount = null;
+        String currency = null;
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Order message is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "id" -> id = UUID.fromString(parser.getText());
+                    case "originalAmount" -> originalAmount = parser.getDecimalValue();
+                    case "currency" -> currency = parser.getText();
+                    case "vatAmount" -> vatAmount = parser.getDecimalValue();
+                    case "totalAmount" -> totalAmount = parser.getDecimalValue();
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return new ProcessedOrder(id, originalAmount, currency, vatAmount, totalAmount);
+    }
+}
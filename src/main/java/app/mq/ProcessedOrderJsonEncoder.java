@@ -0,0 +1,170 @@
+package app.mq;
+
+import app.model.ProcessedOrder;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Writes the order message JSON straight into a reusable byte buffer:
+ * {@code {"id":"…","originalAmount":…,"currency":"…","vatAmount":…,"totalAmount":…}}.
+ * The output is byte-identical to the former {@code String.format} + {@code toPlainString()} + UTF-8 encoding,
+ * without the format string parsing and intermediate Strings: per message it allocates the exact-size result array
+ * and one {@link BigDecimal#unscaledValue()} BigInteger per amount.
+ * Not thread-safe – keep one instance per thread.
+ */
+public final class ProcessedOrderJsonEncoder {
+
+    private static final byte[] ID_PREFIX       = ascii("{\"id\":\"");
+    private static final byte[] ORIGINAL_AMOUNT = ascii("\",\"originalAmount\":");
+    private static final byte[] CURRENCY        = ascii(",\"currency\":\"");
+    private static final byte[] VAT_AMOUNT      = ascii("\",\"vatAmount\":");
+    private static final byte[] TOTAL_AMOUNT    = ascii(",\"totalAmount\":");
+    private static final byte[] HEX             = ascii("0123456789abcdef");
+    private static final long[] POWERS_OF_TEN   = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private byte[] buffer = new byte[160];
+    private int    position;
+
+    public byte[] encode(ProcessedOrder order) {
+        position = 0;
+        write(ID_PREFIX);
+        writeUuid(order.id());
+        write(ORIGINAL_AMOUNT);
+        writePlain(order.originalAmount());
+        write(CURRENCY);
+        writeText(order.currency());
+        write(VAT_AMOUNT);
+        writePlain(order.vatAmount());
+        write(TOTAL_AMOUNT);
+        writePlain(order.totalAmount());
+        writeByte('}');
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void writeUuid(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        writeHex(msb >>> 32, 8);
+        writeByte('-');
+        writeHex(msb >>> 16, 4);
+        writeByte('-');
+        writeHex(msb, 4);
+        writeByte('-');
+        writeHex(lsb >>> 48, 4);
+        writeByte('-');
+        writeHex(lsb, 12);
+    }
+
+    private void writeHex(long value, int digits) {
+        ensureCapacity(digits);
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer[position + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        position += digits;
+    }
+
+    /**
+     * Same characters as {@link BigDecimal#toPlainString()}.
+     */
+    private void writePlain(BigDecimal value) {
+        BigInteger unscaledValue = value.unscaledValue();
+        if (unscaledValue.bitLength() >= 63) {
+            // Poza zakresem long (nie występuje dla kwot zamówień) – zwykła ścieżka.
+            writeText(value.toPlainString());
+            return;
+        }
+        long unscaled = unscaledValue.longValue();
+        int scale = value.scale();
+        if (unscaled < 0) {
+            writeByte('-');
+            unscaled = -unscaled;
+        }
+        int digits = digitCount(unscaled);
+        if (scale <= 0) {
+            writeDigits(unscaled, digits);
+            if (unscaled != 0) {
+                writeZeros(-scale);
+            }
+        } else if (digits > scale) {
+            long pow = POWERS_OF_TEN[scale];
+            writeDigits(unscaled / pow, digits - scale);
+            writeByte('.');
+            writeDigits(unscaled % pow, scale);
+        } else {
+            writeByte('0');
+            writeByte('.');
+            writeZeros(scale - digits);
+            writeDigits(unscaled, digits);
+        }
+    }
+
+    /** Writes exactly {@code count} digits of {@code value}, left-padded with zeros. */
+    private void writeDigits(long value, int count) {
+        ensureCapacity(count);
+        for (int i = count - 1; i >= 0; i--) {
+            buffer[position + i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += count;
+    }
+
+    private void writeZeros(int count) {
+        ensureCapacity(count);
+        Arrays.fill(buffer, position, position + count, (byte) '0');
+        position += count;
+    }
+
+    private void writeText(String text) {
+        int length = text.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                write(text.substring(i).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            buffer[position++] = (byte) c;
+        }
+    }
+
+    private void write(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeByte(char c) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) c;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
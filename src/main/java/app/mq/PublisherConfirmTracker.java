@@ -0,0 +1,110 @@
+package app.mq;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.ShutdownSignalException;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asynchronous publisher confirms for one channel in confirm mode.
+ * Every publish gets a future keyed by its delivery tag in a sorted map, so a {@code multiple=true} ack
+ * settles the whole head of the map at once. At most {@code maxUnconfirmed} messages may be in flight;
+ * further publishes block until the broker catches up.
+ */
+final class PublisherConfirmTracker implements ConfirmListener {
+
+    private final Channel channel;
+    private final ConcurrentSkipListMap<Long, CompletableFuture<Void>> outstanding = new ConcurrentSkipListMap<>();
+    private final Semaphore capacity;
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    PublisherConfirmTracker(Channel channel, int maxUnconfirmed) throws IOException {
+        if (maxUnconfirmed <= 0) {
+            throw new IllegalArgumentException("Max unconfirmed messages must be positive: " + maxUnconfirmed);
+        }
+        this.channel = channel;
+        this.capacity = new Semaphore(maxUnconfirmed);
+        channel.confirmSelect();
+        channel.addConfirmListener(this);
+        channel.addShutdownListener(this::failAll);
+    }
+
+    CompletableFuture<Void> publish(String exchange, String routingKey, AMQP.BasicProperties props, byte[] body)
+            throws IOException, InterruptedException {
+        capacity.acquire();
+        CompletableFuture<Void> confirmed = new CompletableFuture<>();
+        publishLock.lock();
+        try {
+            // Numer sekwencyjny i basicPublish muszą iść razem – inaczej tagi rozjadą się z wiadomościami.
+            long seqNo = channel.getNextPublishSeqNo();
+            outstanding.put(seqNo, confirmed);
+            try {
+                channel.basicPublish(exchange, routingKey, props, body);
+            } catch (IOException | RuntimeException e) {
+                outstanding.remove(seqNo);
+                capacity.release();
+                throw e;
+            }
+        } finally {
+            publishLock.unlock();
+        }
+        return confirmed;
+    }
+
+    int outstandingCount() {
+        return outstanding.size();
+    }
+
+    @Override
+    public void handleAck(long deliveryTag, boolean multiple) {
+        settle(deliveryTag, multiple, null);
+    }
+
+    @Override
+    public void handleNack(long deliveryTag, boolean multiple) {
+        settle(deliveryTag, multiple, new IOException("Broker nacked message with delivery tag " + deliveryTag));
+    }
+
+    private void settle(long deliveryTag, boolean multiple, Throwable failure) {
+        if (multiple) {
+            NavigableMap<Long, CompletableFuture<Void>> head = outstanding.headMap(deliveryTag, true);
+            for (Map.Entry<Long, CompletableFuture<Void>> entry : head.entrySet()) {
+                if (head.remove(entry.getKey(), entry.getValue())) {
+                    finish(entry.getValue(), failure);
+                }
+            }
+        } else {
+            CompletableFuture<Void> confirmed = outstanding.remove(deliveryTag);
+            if (confirmed != null) {
+                finish(confirmed, failure);
+            }
+        }
+    }
+
+    private void finish(CompletableFuture<Void> confirmed, Throwable failure) {
+        capacity.release();
+        if (failure == null) {
+            confirmed.complete(null);
+        } else {
+            confirmed.completeExceptionally(failure);
+        }
+    }
+
+    private void failAll(ShutdownSignalException cause) {
+        IOException failure = new IOException("Channel closed before confirm", cause);
+        for (Long tag : outstanding.keySet()) {
+            CompletableFuture<Void> confirmed = outstanding.remove(tag);
+            if (confirmed != null) {
+                finish(confirmed, failure);
+            }
+        }
+    }
+}
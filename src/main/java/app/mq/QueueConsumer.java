@@ -0,0 +1,149 @@
+package app.mq;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Push-based consumer ({@code basicConsume}) replacing {@code basicGet} polling.
+ * The broker pushes up to {@link ConsumerConfig#prefetch()} messages per channel; handled messages are acked
+ * in batches with a single {@code multiple=true} ack, and a background flush acks a partial batch after
+ * {@link ConsumerConfig#ackFlushInterval()} so a quiet queue does not hold deliveries unacked.
+ * With several channels the handler is called concurrently (one dispatch thread per channel).
+ * {@link BatchEnvelope} messages are unpacked and the handler is called once per contained message.
+ */
+public class QueueConsumer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(QueueConsumer.class);
+
+    private final Connection      connection;
+    private final String          queueName;
+    private final ConsumerConfig  config;
+    private final MessageHandler  handler;
+    private final List<AckingConsumer> consumers = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService ackFlusher;
+
+    public QueueConsumer(Connection connection, String queueName, ConsumerConfig config, MessageHandler handler) {
+        this.connection = connection;
+        this.queueName = queueName;
+        this.config = config;
+        this.handler = handler;
+    }
+
+    public synchronized void start() throws IOException {
+        if (ackFlusher != null) {
+            throw new IllegalStateException("Consumer of '" + queueName + "' already started");
+        }
+        ackFlusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "consumer-ack-flush-" + queueName);
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < config.channels(); i++) {
+            Channel ch = connection.createChannel();
+            ch.basicQos(config.prefetch());
+            AckingConsumer consumer = new AckingConsumer(ch);
+            consumer.consumerTag = ch.basicConsume(queueName, false, consumer);
+            consumers.add(consumer);
+        }
+        long flushMillis = config.ackFlushInterval().toMillis();
+        ackFlusher.scheduleWithFixedDelay(() -> consumers.forEach(AckingConsumer::flushAcks),
+                flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        log.info("Consuming from '{}' on {} channel(s), prefetch {}, ack batch {}.",
+                queueName, config.channels(), config.prefetch(), config.ackBatchSize());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (ackFlusher != null) {
+            ackFlusher.shutdownNow();
+            ackFlusher = null;
+        }
+        for (AckingConsumer consumer : consumers) {
+            consumer.cancel();
+        }
+        consumers.clear();
+    }
+
+    private final class AckingConsumer extends DefaultConsumer {
+        private String consumerTag;
+        private long   lastHandledTag;
+        private int    unacked;
+
+        private AckingConsumer(Channel channel) {
+            super(channel);
+        }
+
+        @Override
+        public void handleDelivery(String tag, Envelope envelope, AMQP.BasicProperties properties, byte[] body) {
+            try {
+                if (BatchEnvelope.isBatch(properties)) {
+                    // Błąd w środku koperty odrzuca całą – wcześniejsze wiadomości z niej mogą przyjść ponownie.
+                    AMQP.BasicProperties messageProperties = BatchEnvelope.messageProperties(properties);
+                    for (byte[] message : BatchEnvelope.unpack(body)) {
+                        handler.onMessage(message, messageProperties);
+                    }
+                } else {
+                    handler.onMessage(body, properties);
+                }
+            } catch (Exception e) {
+                boolean requeue = !envelope.isRedeliver();
+                log.error("Handler failed for message from '{}' (requeue: {}): {}", queueName, requeue, e.getMessage(), e);
+                nack(envelope.getDeliveryTag(), requeue);
+                return;
+            }
+            synchronized (this) {
+                lastHandledTag = envelope.getDeliveryTag();
+                if (++unacked >= config.ackBatchSize()) {
+                    flushAcks();
+                }
+            }
+        }
+
+        private synchronized void flushAcks() {
+            if (unacked == 0 || !getChannel().isOpen()) {
+                return;
+            }
+            try {
+                // Jedno potwierdzenie dla wszystkich obsłużonych do lastHandledTag (wcześniejsze nacki już rozliczone).
+                getChannel().basicAck(lastHandledTag, true);
+                unacked = 0;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not ack messages from '{}' up to tag {}: {}", queueName, lastHandledTag, e.getMessage());
+            }
+        }
+
+        private synchronized void nack(long deliveryTag, boolean requeue) {
+            try {
+                getChannel().basicNack(deliveryTag, false, requeue);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not nack message {} from '{}': {}", deliveryTag, queueName, e.getMessage());
+            }
+        }
+
+        private void cancel() {
+            Channel ch = getChannel();
+            try {
+                if (ch.isOpen()) {
+                    ch.basicCancel(consumerTag);
+                    flushAcks();
+                    ch.close();
+                }
+            } catch (IOException | TimeoutException | RuntimeException e) {
+                log.warn("Problem while closing consumer channel of '{}'", queueName, e);
+            }
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package app.mq;
 
+import app.model.OutboxMessage;
 import com.rabbitmq.client.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -21,8 +29,23 @@ public class RabbitMqClient implements AutoCloseable {
     private Channel    channel;
     private String     queueName;
 
+    /** Kanały do publikacji – kanał AMQP nie jest thread-safe, więc każdy wątek wypożycza własny. */
+    private final ChannelPoolConfig poolConfig;
+    private ChannelPool publisherPool;
+
+    /** Bufor wiadomości dostarczonych przez konsumenta dla {@link #getMessageFromQueue}; konsument startuje leniwie. */
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private QueueConsumer bufferConsumer;
+    /** Binarne wiadomości zamówień trafiają do bufora jako JSON – kroki testowe porównują JSON. */
+    private final ProcessedOrderJsonEncoder bufferJsonEncoder = new ProcessedOrderJsonEncoder();
+
     public RabbitMqClient(ConnectionFactory connectionFactory) {
+        this(connectionFactory, ChannelPoolConfig.defaults());
+    }
+
+    public RabbitMqClient(ConnectionFactory connectionFactory, ChannelPoolConfig poolConfig) {
         this.connectionFactory = connectionFactory;
+        this.poolConfig = poolConfig;
     }
 
     /* ------------------------------------------------ konfiguracja / lifecycle */
@@ -33,12 +56,21 @@ public class RabbitMqClient implements AutoCloseable {
         connection = connectionFactory.newConnection();
         channel    = connection.createChannel();
         channel.queueDeclare(queueName, false, false, false, null);
+        publisherPool = new ChannelPool(connectionFactory, poolConfig);
+        publisherPool.open();
 
         log.info("Connected to RabbitMQ and queue '{}' declared.", queueName);
     }
 
     @Override public void close() {
+        synchronized (received) {
+            if (bufferConsumer != null) {
+                bufferConsumer.close();
+                bufferConsumer = null;
+            }
+        }
         try {
+            if (publisherPool != null) publisherPool.close();
             if (channel    != null && channel.isOpen())    channel.close();
             if (connection != null && connection.isOpen()) connection.close();
         } catch (IOException | TimeoutException e) {
@@ -50,26 +82,126 @@ public class RabbitMqClient implements AutoCloseable {
 
     public void clearQueue() throws IOException {
         channel.queuePurge(queueName);
+        // Wiadomości już wypchnięte do lokalnego bufora też są "w kolejce" z punktu widzenia testu.
+        received.clear();
         log.info("Queue '{}' purged.", queueName);
     }
 
+    /**
+     * Next message of the declared queue, pushed by a {@link QueueConsumer} started on first use.
+     * {@link MessageFormat#BINARY} order messages are returned as their JSON equivalent.
+     *
+     * @return message body, or {@code null} when nothing arrived within {@code timeout}
+     */
     public String getMessageFromQueue(Duration timeout) throws InterruptedException, IOException {
-        long end = System.currentTimeMillis() + timeout.toMillis();
-        while (System.currentTimeMillis() < end) {
-            GetResponse resp = channel.basicGet(queueName, true);
-            if (resp != null) {
-                return new String(resp.getBody(), StandardCharsets.UTF_8);
+        synchronized (received) {
+            if (bufferConsumer == null) {
+                bufferConsumer = startConsumer(queueName, ConsumerConfig.defaults(),
+                        (body, props) -> received.put(MessageFormat.of(props) == MessageFormat.BINARY
+                                ? new String(bufferJsonEncoder.encode(ProcessedOrderBinaryCodec.decode(body)), StandardCharsets.UTF_8)
+                                : new String(body, StandardCharsets.UTF_8)));
             }
-            Thread.sleep(200);
         }
-        return null;    // timeout
+        return received.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts a push consumer on this client's connection; the caller closes it.
+     */
+    public QueueConsumer startConsumer(String queue, ConsumerConfig config, MessageHandler handler) throws IOException {
+        QueueConsumer consumer = new QueueConsumer(connection, queue, config, handler);
+        consumer.start();
+        return consumer;
     }
 
-    /** Uniwersalna publikacja – wymagana przez OrderWorker. */
+    /** Uniwersalna publikacja – wymagana przez OrderWorker. Bezpieczna dla wielu wątków (kanał z puli). */
     public void publishMessage(String exchange,
                                String routingKey,
                                String body) throws IOException {
-        channel.basicPublish(exchange, routingKey, null, body.getBytes(StandardCharsets.UTF_8));
+        publishMessage(exchange, routingKey, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Publikacja gotowych bajtów (np. z {@link ProcessedOrderJsonEncoder}) – bez konwersji String → UTF-8. */
+    public void publishMessage(String exchange, String routingKey, byte[] body) throws IOException {
+        publishMessage(exchange, routingKey, null, body);
         log.info("Message published to '{}'.", routingKey);
     }
+
+    public void publishMessage(String exchange, String routingKey, AMQP.BasicProperties props, byte[] body)
+            throws IOException {
+        ChannelPool.PooledChannel pc = borrowChannel();
+        try {
+            pc.channel().basicPublish(exchange, routingKey, props, body);
+        } finally {
+            publisherPool.release(pc);
+        }
+    }
+
+    /**
+     * Publishes on a confirm-mode channel without waiting for the broker. The returned future completes when
+     * the broker acks the message and fails when it nacks it or the channel closes first. Many publishes can be
+     * outstanding at once (up to {@link ChannelPoolConfig#maxUnconfirmed()} per channel), so confirms are
+     * pipelined instead of paying a round trip per message.
+     */
+    public CompletableFuture<Void> publishConfirmed(String exchange, String routingKey, byte[] body)
+            throws IOException, InterruptedException {
+        return publishConfirmed(exchange, routingKey, null, body);
+    }
+
+    public CompletableFuture<Void> publishConfirmed(String exchange, String routingKey, AMQP.BasicProperties props,
+                                                    byte[] body) throws IOException, InterruptedException {
+        ChannelPool.PooledChannel pc = publisherPool.borrow();
+        try {
+            return pc.confirms().publish(exchange, routingKey, props, body);
+        } finally {
+            publisherPool.release(pc);
+        }
+    }
+
+    /**
+     * Publishes the whole batch on one pooled confirm-mode channel and waits once for the broker to confirm all of it.
+     *
+     * @throws IOException when the broker nacks a message or does not confirm within {@code timeout};
+     *                     the caller should treat the whole batch as not delivered
+     */
+    public void publishAndConfirm(List<OutboxMessage> messages, Duration timeout) throws IOException, InterruptedException {
+        CompletableFuture<?>[] confirms = new CompletableFuture<?>[messages.size()];
+        ChannelPool.PooledChannel pc = publisherPool.borrow();
+        try {
+            PublisherConfirmTracker tracker = pc.confirms();
+            for (int i = 0; i < confirms.length; i++) {
+                OutboxMessage message = messages.get(i);
+                AMQP.BasicProperties props = MessageTimestamps.stamp(
+                        new AMQP.BasicProperties.Builder().contentType(message.contentType()).build(),
+                        message.orderCreatedAt(), System.currentTimeMillis());
+                confirms[i] = tracker.publish(message.exchange(), message.routingKey(), props, message.payload());
+            }
+        } finally {
+            publisherPool.release(pc);
+        }
+        try {
+            CompletableFuture.allOf(confirms).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new IOException("Broker did not confirm the batch of " + messages.size() + " messages", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IOException("Broker did not confirm " + messages.size() + " messages within " + timeout, e);
+        }
+        log.debug("{} messages published and confirmed.", messages.size());
+    }
+
+    /**
+     * @return number of confirm-mode publishes still waiting for the broker, over all pooled channels
+     */
+    public int unconfirmedCount() {
+        return publisherPool == null ? 0 : publisherPool.unconfirmedCount();
+    }
+
+    private ChannelPool.PooledChannel borrowChannel() throws IOException {
+        try {
+            return publisherPool.borrow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a publisher channel");
+        }
+    }
 }
@@ -0,0 +1,141 @@
+package app.repository;
+
+import app.model.Order;
+import app.model.OutboxMessage;
+import app.model.ProcessedOrder;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * {@link OrderRepository} calls as {@link CompletableFuture}s, run on a dedicated JDBC executor.
+ * The executor has as many threads as the connection pool has connections, so no thread waits on Hikari's
+ * connection timeout; further calls queue up to {@code queueCapacity}, beyond that the returned future fails
+ * with {@link RejectedExecutionException}. Dependent stages ({@code thenCompose}, {@code thenAccept}, …) run on
+ * the JDBC threads unless an {@code *Async} variant with another executor is used – keep them short or hand
+ * publishing etc. off to its own executor.
+ */
+public class AsyncOrderRepository implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncOrderRepository.class);
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    private final OrderRepository    repository;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * One thread per connection of {@code dataSource}'s pool.
+     */
+    public AsyncOrderRepository(OrderRepository repository, HikariDataSource dataSource) {
+        this(repository, dataSource.getMaximumPoolSize(), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public AsyncOrderRepository(OrderRepository repository, int threads, int queueCapacity) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+        }
+        this.repository = repository;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "jdbc-async-" + threadNumber.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                });
+        log.info("Async order repository started: {} JDBC thread(s), queue capacity {}.", threads, queueCapacity);
+    }
+
+    public CompletableFuture<Void> insertOrder(Order order) {
+        return run(() -> {
+            repository.insertOrder(order);
+            return null;
+        });
+    }
+
+    public CompletableFuture<ProcessedOrder> findOrderById(UUID id) {
+        return run(() -> repository.findOrderById(id));
+    }
+
+    public CompletableFuture<List<Order>> claimUnprocessed(int limit, Duration claimTimeout) {
+        return run(() -> repository.claimUnprocessed(limit, claimTimeout));
+    }
+
+    public CompletableFuture<List<Order>> claimUnprocessed(int limit, Duration claimTimeout,
+                                                           int partitionCount, int[] partitions) {
+        return run(() -> repository.claimUnprocessed(limit, claimTimeout, partitionCount, partitions));
+    }
+
+    public CompletableFuture<Void> updateOrderWithProcessedData(ProcessedOrder processedOrder) {
+        return run(() -> {
+            repository.updateOrderWithProcessedData(processedOrder);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Integer> updateOrdersWithProcessedData(List<ProcessedOrder> processedOrders) {
+        return run(() -> repository.updateOrdersWithProcessedData(processedOrders));
+    }
+
+    public CompletableFuture<Integer> updateOrdersWithProcessedData(List<ProcessedOrder> processedOrders,
+                                                                    List<OutboxMessage> outboxMessages) {
+        return run(() -> repository.updateOrdersWithProcessedData(processedOrders, outboxMessages));
+    }
+
+    public CompletableFuture<Integer> getUnprocessedCount() {
+        return run(repository::getUnprocessedCount);
+    }
+
+    public CompletableFuture<Void> deleteOrdersByIds(List<String> orderIds) {
+        return run(() -> {
+            repository.deleteOrdersByIds(orderIds);
+            return null;
+        });
+    }
+
+    /**
+     * @return calls waiting for a free JDBC thread
+     */
+    public int queuedCount() {
+        return executor.getQueue().size();
+    }
+
+    private <T> CompletableFuture<T> run(Supplier<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Stops accepting calls and waits up to 5 seconds for the queued ones.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Async order repository did not finish {} queued call(s) in time.", executor.getQueue().size());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+}
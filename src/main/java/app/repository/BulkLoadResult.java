@@ -0,0 +1,22 @@
+package app.repository;
+
+import java.time.Duration;
+
+/**
+ * Outcome of one {@link OrderBulkLoader} run.
+ *
+ * @param copy {@code true} when the rows went through {@code COPY}, {@code false} for the multi-row INSERT fallback
+ */
+public record BulkLoadResult(long rows, Duration elapsed, boolean copy) {
+
+    public double rowsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0.0 : rows * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows in %d ms (%.0f rows/s, %s)",
+                rows, elapsed.toMillis(), rowsPerSecond(), copy ? "COPY" : "INSERT");
+    }
+}
@@ -0,0 +1,218 @@
+package app.repository;
+
+import app.model.OutboxMessage;
+import app.model.ProcessedOrder;
+import org.jooq.DSLContext;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link OrderRepository} with a bounded in-process read-through cache in front of {@link #findOrderById(UUID)}.
+ * Entries are evicted least-recently-used beyond {@code maxSize} and after {@code ttl}; concurrent misses for
+ * the same ID share one query. Updates and deletes made through this instance invalidate the affected IDs,
+ * changes made elsewhere (other instances, other processes) are only picked up once the entry expires –
+ * choose the TTL accordingly. Missing orders are not cached.
+ * Enabled with {@code worker.cache.enabled}, see {@link OrderCacheConfig}; the counters are registered over JMX as
+ * {@code app.repository:type=OrderCache,name=<name>}.
+ */
+public class CachingOrderRepository extends OrderRepository implements CachingOrderRepositoryMXBean {
+
+    public static final String DOMAIN = "app.repository";
+
+    private final int  maxSize;
+    private final long ttlNanos;
+
+    /** Kolejność dostępu = LRU; chroniona monitorem samej mapy. */
+    private final LinkedHashMap<UUID, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<UUID, CompletableFuture<ProcessedOrder>> loading = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits      = new AtomicLong();
+    private final AtomicLong misses    = new AtomicLong();
+    private final AtomicLong loads     = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private ObjectName registered;
+
+    public CachingOrderRepository(DSLContext dsl, int maxSize, Duration ttl) {
+        super(dsl);
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Cache TTL must be positive: " + ttl);
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    public ProcessedOrder findOrderById(UUID id) {
+        ProcessedOrder cached = cached(id);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+
+        CompletableFuture<ProcessedOrder> mine = new CompletableFuture<>();
+        CompletableFuture<ProcessedOrder> running = loading.putIfAbsent(id, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                // Czekający dostaje ten sam wyjątek co wątek, który czytał z bazy – nie opakowany.
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        try {
+            loads.incrementAndGet();
+            ProcessedOrder order = super.findOrderById(id);
+            store(id, mine, order);
+            mine.complete(order);
+            return order;
+        } catch (RuntimeException | Error e) {
+            loading.remove(id, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void updateOrderWithProcessedData(ProcessedOrder processedOrder) {
+        try {
+            super.updateOrderWithProcessedData(processedOrder);
+        } finally {
+            invalidate(processedOrder.id());
+        }
+    }
+
+    @Override
+    public int updateOrdersWithProcessedData(List<ProcessedOrder> processedOrders, List<OutboxMessage> outboxMessages) {
+        try {
+            return super.updateOrdersWithProcessedData(processedOrders, outboxMessages);
+        } finally {
+            if (processedOrders != null) {
+                processedOrders.forEach(po -> invalidate(po.id()));
+            }
+        }
+    }
+
+    @Override
+    public void deleteOrdersByIds(List<String> orderIds) {
+        try {
+            super.deleteOrdersByIds(orderIds);
+        } finally {
+            if (orderIds != null) {
+                for (String id : orderIds) {
+                    try {
+                        invalidate(UUID.fromString(id));
+                    } catch (IllegalArgumentException e) {
+                        // Nie-UUID nie mógł trafić do cache.
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void truncateOrdersTable() {
+        try {
+            super.truncateOrdersTable();
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    public void invalidate(UUID id) {
+        synchronized (entries) {
+            loading.remove(id);
+            entries.remove(id);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        synchronized (entries) {
+            loading.clear();
+            entries.clear();
+        }
+    }
+
+    public OrderCacheStats cacheStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new OrderCacheStats(hits.get(), misses.get(), loads.get(), evictions.get(), size);
+    }
+
+    @Override
+    public OrderCacheStats getCacheStats() {
+        return cacheStats();
+    }
+
+    public synchronized void register(MBeanServer server, String name) throws JMException {
+        ObjectName objectName = new ObjectName(DOMAIN + ":type=OrderCache,name=" + ObjectName.quote(name));
+        server.registerMBean(this, objectName);
+        registered = objectName;
+    }
+
+    public synchronized void unregister(MBeanServer server) throws JMException {
+        if (registered != null && server.isRegistered(registered)) {
+            server.unregisterMBean(registered);
+        }
+        registered = null;
+    }
+
+    private ProcessedOrder cached(UUID id) {
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.loadedAt() >= ttlNanos) {
+                entries.remove(id);
+                evictions.incrementAndGet();
+                return null;
+            }
+            return entry.order();
+        }
+    }
+
+    private void store(UUID id, CompletableFuture<ProcessedOrder> load, ProcessedOrder order) {
+        synchronized (entries) {
+            // Unieważnienie w trakcie odczytu usuwa nas z 'loading' – wynik może być nieaktualny i nie trafia do cache.
+            if (!loading.remove(id, load) || order == null) {
+                return;
+            }
+            entries.put(id, new Entry(order, System.nanoTime()));
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > maxSize) {
+                eldest.next();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private record Entry(ProcessedOrder order, long loadedAt) {
+    }
+}
@@ -0,0 +1,14 @@
+package app.repository;
+
+/**
+ * JMX view of the {@link CachingOrderRepository} cache.
+ */
+public interface CachingOrderRepositoryMXBean {
+
+    /**
+     * @return all counters as one composite value
+     */
+    OrderCacheStats getCacheStats();
+
+    void invalidateAll();
+}
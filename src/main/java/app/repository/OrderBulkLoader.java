@@ -0,0 +1,150 @@
+package app.repository;
+
+import app.model.Order;
+import org.jooq.ConnectionProvider;
+import org.jooq.DSLContext;
+import org.jooq.Row3;
+import org.jooq.impl.DSL;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static app.jooq.tables.Orders.ORDERS;
+import static org.jooq.impl.DSL.row;
+
+/**
+ * Loads large numbers of new orders at once. On PostgreSQL the rows are streamed through {@code COPY ... FROM STDIN}
+ * in CSV format, {@value #COPY_BUFFER_SIZE} bytes at a time, so the input is never held in memory as a whole.
+ * Other datasources get multi-row INSERTs of {@value #INSERT_CHUNK_SIZE} rows in one transaction.
+ * Either way the load is all-or-nothing. Orders are validated by the {@link Order} constructor before they get
+ * here; status and timestamps take their column defaults, as with {@link OrderRepository#insertOrder(Order)}.
+ */
+public class OrderBulkLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderBulkLoader.class);
+
+    private static final String COPY_SQL =
+            "COPY \"ORDERS\" (\"ID\", \"AMOUNT\", \"CURRENCY\") FROM STDIN (FORMAT csv)";
+    private static final int COPY_BUFFER_SIZE  = 64 * 1024;
+    /** Rows per multi-row INSERT of the fallback – 3000 bind values, a tenth of what one statement may carry. */
+    private static final int INSERT_CHUNK_SIZE = 1000;
+
+    private final DSLContext dsl;
+    private final ConnectionProvider connectionProvider;
+
+    public OrderBulkLoader(DSLContext dsl) {
+        this.dsl = dsl;
+        this.connectionProvider = dsl.configuration().connectionProvider();
+    }
+
+    /**
+     * Loads the stream and closes it.
+     */
+    public BulkLoadResult load(Stream<Order> orders) throws SQLException {
+        try (orders) {
+            return load(orders.iterator());
+        }
+    }
+
+    public BulkLoadResult load(Iterator<Order> orders) throws SQLException {
+        long started = System.nanoTime();
+        Connection connection = connectionProvider.acquire();
+        boolean copy;
+        long rows;
+        try {
+            copy = connection.isWrapperFor(PGConnection.class);
+            rows = copy ? copy(connection.unwrap(PGConnection.class), orders) : insert(connection, orders);
+        } finally {
+            connectionProvider.release(connection);
+        }
+        BulkLoadResult result = new BulkLoadResult(rows, Duration.ofNanos(System.nanoTime() - started), copy);
+        log.info("Bulk loaded orders: {}", result);
+        return result;
+    }
+
+    private static long copy(PGConnection connection, Iterator<Order> orders) throws SQLException {
+        CopyIn copyIn = connection.getCopyAPI().copyIn(COPY_SQL);
+        try {
+            StringBuilder csv = new StringBuilder(COPY_BUFFER_SIZE + 128);
+            while (orders.hasNext()) {
+                appendCsv(csv, Objects.requireNonNull(orders.next(), "order is required"));
+                if (csv.length() >= COPY_BUFFER_SIZE) {
+                    write(copyIn, csv);
+                }
+            }
+            write(copyIn, csv);
+            return copyIn.endCopy();
+        } finally {
+            // Błąd wejścia albo zapisu – przerwany COPY wycofuje wszystkie wiersze.
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void appendCsv(StringBuilder csv, Order order) {
+        csv.append(order.id()).append(',')
+                .append(order.amount().toPlainString()).append(",\"");
+        String currency = order.currency();
+        for (int i = 0; i < currency.length(); i++) {
+            char c = currency.charAt(i);
+            if (c == '"') {
+                csv.append('"');
+            }
+            csv.append(c);
+        }
+        csv.append("\"\n");
+    }
+
+    private static void write(CopyIn copyIn, StringBuilder csv) throws SQLException {
+        if (csv.isEmpty()) {
+            return;
+        }
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        csv.setLength(0);
+    }
+
+    /**
+     * Runs on the connection already held by {@link #load(Iterator)}: borrowing a second one from the pool would
+     * deadlock a pool of size one.
+     */
+    private long insert(Connection connection, Iterator<Order> orders) {
+        return DSL.using(connection, dsl.dialect()).transactionResult(tx -> {
+            DSLContext txDsl = DSL.using(tx);
+            long inserted = 0;
+            List<Row3<UUID, BigDecimal, String>> chunk = new ArrayList<>(INSERT_CHUNK_SIZE);
+            while (orders.hasNext()) {
+                Order order = Objects.requireNonNull(orders.next(), "order is required");
+                chunk.add(row(order.id(), order.amount(), order.currency()));
+                if (chunk.size() == INSERT_CHUNK_SIZE) {
+                    inserted += insertChunk(txDsl, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                inserted += insertChunk(txDsl, chunk);
+            }
+            return inserted;
+        });
+    }
+
+    private static int insertChunk(DSLContext txDsl, List<Row3<UUID, BigDecimal, String>> chunk) {
+        return txDsl.insertInto(ORDERS, ORDERS.ID, ORDERS.AMOUNT, ORDERS.CURRENCY)
+                .valuesOfRows(chunk)
+                .execute();
+    }
+}
@@ -0,0 +1,48 @@
+package app.repository;
+
+import org.jooq.DSLContext;
+
+import java.time.Duration;
+import java.util.Properties;
+
+import static app.config.ConfigProperties.booleanProperty;
+import static app.config.ConfigProperties.intProperty;
+import static app.config.ConfigProperties.millisProperty;
+
+/**
+ * Read-through cache of {@link CachingOrderRepository} ({@code worker.cache.*} keys). Off by default: with several
+ * processes writing ORDERS a cached order may be up to {@code ttl} stale.
+ *
+ * @param maxSize orders kept at most, least recently used are evicted first
+ * @param ttl     age after which a cached order is read again
+ */
+public record OrderCacheConfig(boolean enabled, int maxSize, Duration ttl) {
+
+    public OrderCacheConfig {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Cache TTL must be positive: " + ttl);
+        }
+    }
+
+    public static OrderCacheConfig defaults() {
+        return new OrderCacheConfig(false, 10_000, Duration.ofSeconds(30));
+    }
+
+    public static OrderCacheConfig fromProperties(Properties props) {
+        OrderCacheConfig d = defaults();
+        return new OrderCacheConfig(
+                booleanProperty(props, "worker.cache.enabled", d.enabled()),
+                intProperty(props, "worker.cache.size", d.maxSize()),
+                millisProperty(props, "worker.cache.ttl.ms", d.ttl()));
+    }
+
+    /**
+     * @return a {@link CachingOrderRepository} when enabled, a plain {@link OrderRepository} otherwise
+     */
+    public OrderRepository newRepository(DSLContext dsl) {
+        return enabled ? new CachingOrderRepository(dsl, maxSize, ttl) : new OrderRepository(dsl);
+    }
+}
@@ -0,0 +1,26 @@
+package app.repository;
+
+/**
+ * Counters of the {@link CachingOrderRepository} cache since it was created.
+ *
+ * @param misses    lookups not answered from the cache; {@code loads} counts the queries actually run for them,
+ *                  lower when concurrent misses for one ID were coalesced
+ * @param evictions entries dropped for size or age (invalidations are not counted)
+ */
+public record OrderCacheStats(long hits,
+                              long misses,
+                              long loads,
+                              long evictions,
+                              int size) {
+
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d, hits=%d, misses=%d, loads=%d, evictions=%d, hitRate=%.1f%%",
+                size, hits, misses, loads, evictions, hitRate() * 100);
+    }
+}
@@ -0,0 +1,98 @@
+package app.repository;
+
+import org.jooq.ConnectionProvider;
+import org.jooq.DSLContext;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Waits for the {@code orders_inserted} notification sent by the insert trigger on ORDERS (V3 migration).
+ * Holds one dedicated connection with an active {@code LISTEN}; it is not thread-safe and is meant to be
+ * used by a single worker thread.
+ */
+public class OrderInsertListener implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderInsertListener.class);
+
+    public static final String CHANNEL = "orders_inserted";
+
+    private final ConnectionProvider connectionProvider;
+    private Connection   connection;
+    private PGConnection pgConnection;
+
+    public OrderInsertListener(DSLContext dsl) {
+        this.connectionProvider = dsl.configuration().connectionProvider();
+    }
+
+    /**
+     * Registers the {@code LISTEN}. Notifications sent after this call are queued on the connection
+     * until {@link #awaitInsert(Duration)} drains them, so none is lost between two waits.
+     */
+    public void start() throws SQLException {
+        if (connection != null) {
+            return;
+        }
+        Connection conn = connectionProvider.acquire();
+        try {
+            PGConnection pg = conn.unwrap(PGConnection.class);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("LISTEN " + CHANNEL);
+            }
+            this.connection = conn;
+            this.pgConnection = pg;
+            log.info("Listening for '{}' notifications.", CHANNEL);
+        } catch (SQLException e) {
+            connectionProvider.release(conn);
+            throw e;
+        }
+    }
+
+    /**
+     * Blocks up to {@code timeout} for an insert notification.
+     *
+     * @return {@code true} if at least one notification arrived (all pending ones are drained)
+     */
+    public boolean awaitInsert(Duration timeout) throws SQLException {
+        start();
+        try {
+            PGNotification[] notifications = pgConnection.getNotifications((int) Math.max(1, timeout.toMillis()));
+            return notifications != null && notifications.length > 0;
+        } catch (SQLException e) {
+            // Zerwane połączenie – przy następnym wywołaniu LISTEN zostanie zarejestrowany od nowa.
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            if (!connection.isClosed()) {
+                // Połączenie wraca do puli – nie może dalej zbierać powiadomień.
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("UNLISTEN " + CHANNEL);
+                }
+            }
+        } catch (SQLException e) {
+            log.debug("UNLISTEN failed, connection is probably broken: {}", e.getMessage());
+        }
+        try {
+            connectionProvider.release(connection);
+        } catch (Exception e) {
+            log.warn("Problem while releasing LISTEN connection", e);
+        } finally {
+            connection = null;
+            pgConnection = null;
+        }
+    }
+}
@@ -1,75 +1,271 @@
 package app.repository;
 
 import app.jooq.tables.Orders;
+import app.jooq.tables.records.OrdersRecord;
 import app.model.Order;
+import app.model.OrderStatus;
+import app.model.OutboxMessage;
 import app.model.ProcessedOrder;
+import org.jooq.Condition;
+import org.jooq.ConnectionProvider;
 import org.jooq.DSLContext;
+import org.jooq.Field;
 import org.jooq.Record;
+import org.jooq.Record3;
 import org.jooq.RecordMapper;
+import org.jooq.Row3;
+import org.jooq.Table;
+import org.jooq.UpdateResultStep;
+import org.jooq.exception.DataAccessException;
+import org.jooq.exception.SQLStateClass;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static app.jooq.tables.Orders.ORDERS;
 import static org.jooq.impl.DSL.*;
 
 public class OrderRepository {
 
+    private static final Logger log = LoggerFactory.getLogger(OrderRepository.class);
+
+    private static final RecordMapper<Record, Order> ORDER_MAPPER = new RecordMapper<Record, Order>() {
+        @Override
+        public Order map(Record record) {
+            return new Order(
+                    record.get(ORDERS.ID),
+                    record.get(ORDERS.AMOUNT),
+                    record.get(ORDERS.CURRENCY),
+                    instant(record.get(ORDERS.CREATED_AT))
+            );
+        }
+    };
+
+    private static final RecordMapper<Record, ProcessedOrder> PROCESSED_ORDER_MAPPER = new RecordMapper<Record, ProcessedOrder>() {
+        @Override
+        public ProcessedOrder map(Record record) {
+            if (record == null) {
+                return null;
+            }
+            return new ProcessedOrder(
+                    record.get(ORDERS.ID),
+                    record.get(ORDERS.AMOUNT),
+                    record.get(ORDERS.CURRENCY),
+                    record.get(ORDERS.VAT_AMOUNT),
+                    record.get(ORDERS.TOTAL_AMOUNT),
+                    instant(record.get(ORDERS.CREATED_AT))
+            );
+        }
+    };
+
+    /** Bind-parameter limit of a single statement is 32767, three per row. */
+    private static final int UPDATE_CHUNK_SIZE = 1000;
+
+    /**
+     * Predykat indeksu częściowego ORDERS_PENDING_IDX (V6) – zapytania o oczekujące zamówienia muszą go powtarzać.
+     * Stała inline: przy planie generycznym prepared statementu parametr {@code STATUS = $1} nie pasuje do indeksu.
+     */
+    private static final Condition PENDING = ORDERS.STATUS.eq(inline(OrderStatus.PENDING.name()));
+
     private final DSLContext dsl;
 
+    // Najczęstsze zapytania – SQL renderowany raz, przy wywołaniu tylko bind (patrz PreparedQuery).
+    private final PreparedQuery insertOrder;
+    private final PreparedQuery findOrderById;
+    private final PreparedQuery updateOrder;
+    private final PreparedQuery claim;
+    private final PreparedQuery claimPartitions;
+
     public OrderRepository(DSLContext dsl) {
         this.dsl = dsl;
+        this.insertOrder = new PreparedQuery(dsl,
+                dsl.insertInto(ORDERS, ORDERS.ID, ORDERS.AMOUNT, ORDERS.CURRENCY)
+                        .values(param("id", UUID.class), param("amount", BigDecimal.class), param("currency", String.class)),
+                "id", "amount", "currency");
+        this.findOrderById = new PreparedQuery(dsl,
+                dsl.select(ORDERS.ID, ORDERS.AMOUNT, ORDERS.CURRENCY, ORDERS.VAT_AMOUNT, ORDERS.TOTAL_AMOUNT, ORDERS.CREATED_AT)
+                        .from(ORDERS)
+                        .where(ORDERS.ID.eq(param("id", UUID.class))),
+                "id");
+        this.updateOrder = new PreparedQuery(dsl,
+                dsl.update(ORDERS)
+                        .set(ORDERS.VAT_AMOUNT, param("vatAmount", BigDecimal.class))
+                        .set(ORDERS.TOTAL_AMOUNT, param("totalAmount", BigDecimal.class))
+                        .set(ORDERS.STATUS, inline(OrderStatus.PROCESSED.name()))
+                        .set(ORDERS.PROCESSED_AT, currentOffsetDateTime())
+                        .where(ORDERS.ID.eq(param("id", UUID.class))),
+                "vatAmount", "totalAmount", "id");
+        this.claim = new PreparedQuery(dsl, claimQuery(noCondition()), "staleSeconds", "limit");
+        this.claimPartitions = new PreparedQuery(dsl,
+                claimQuery(partitionOf(param("partitionCount", Integer.class)).eq(any(param("partitions", Integer[].class)))),
+                "staleSeconds", "partitionCount", "partitions", "limit");
     }
 
     public void insertOrder(Order order) {
-        dsl.insertInto(ORDERS)
-                .set(ORDERS.ID, order.id())
-                .set(ORDERS.AMOUNT, order.amount())
-                .set(ORDERS.CURRENCY, order.currency())
-                .execute();
+        dsl.connection(c -> {
+            try (PreparedStatement ps = insertOrder.prepare(c, order.id(), order.amount(), order.currency())) {
+                ps.executeUpdate();
+            }
+        });
     }
 
     public ProcessedOrder findOrderById(UUID id) {
-        return dsl.selectFrom(ORDERS)
-                .where(ORDERS.ID.eq(id))
-                .fetchOne(new RecordMapper<Record, ProcessedOrder>() {
-                    @Override
-                    public ProcessedOrder map(Record record) {
-                        if (record == null) {
-                            return null;
-                        }
-                        return new ProcessedOrder(
-                                record.get(ORDERS.ID),
-                                record.get(ORDERS.AMOUNT),
-                                record.get(ORDERS.CURRENCY),
-                                record.get(ORDERS.VAT_AMOUNT),
-                                record.get(ORDERS.TOTAL_AMOUNT)
-                        );
-                    }
-                });
+        return dsl.connectionResult(c -> {
+            try (PreparedStatement ps = findOrderById.prepare(c, id);
+                 ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                return new ProcessedOrder(rs.getObject(1, UUID.class), rs.getBigDecimal(2), rs.getString(3),
+                        rs.getBigDecimal(4), rs.getBigDecimal(5), instant(rs.getObject(6, OffsetDateTime.class)));
+            }
+        });
+    }
+
+    /**
+     * Streams all orders through a server-side cursor, {@code fetchSize} rows per round trip, so memory use does
+     * not depend on the table size. The stream holds a pooled connection (in an open read transaction) until it is
+     * closed – always use it in try-with-resources.
+     */
+    public Stream<ProcessedOrder> streamOrders(int fetchSize) {
+        return streamOrders(noCondition(), fetchSize);
+    }
+
+    /**
+     * Like {@link #streamOrders(int)}, only orders in the given status.
+     */
+    public Stream<ProcessedOrder> streamOrders(OrderStatus status, int fetchSize) {
+        return streamOrders(ORDERS.STATUS.eq(status.name()), fetchSize);
+    }
+
+    private Stream<ProcessedOrder> streamOrders(Condition condition, int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be positive: " + fetchSize);
+        }
+        ConnectionProvider provider = dsl.configuration().connectionProvider();
+        Connection connection = provider.acquire();
+        try {
+            // PostgreSQL używa kursora (fetchSize) tylko poza trybem autocommit.
+            connection.setAutoCommit(false);
+            return dsl.configuration().derive(new DefaultConnectionProvider(connection)).dsl()
+                    .selectFrom(ORDERS)
+                    .where(condition)
+                    .fetchSize(fetchSize)
+                    .fetchStream()
+                    .map(PROCESSED_ORDER_MAPPER::map)
+                    .onClose(() -> endStream(provider, connection));
+        } catch (SQLException e) {
+            endStream(provider, connection);
+            throw new DataAccessException("Could not open order stream", e);
+        } catch (RuntimeException e) {
+            endStream(provider, connection);
+            throw e;
+        }
+    }
+
+    private static void endStream(ConnectionProvider provider, Connection connection) {
+        try {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            log.warn("Could not end order stream transaction: {}", e.getMessage());
+        } finally {
+            provider.release(connection);
+        }
     }
 
+    /**
+     * Counts pending orders; a scan of the partial pending index, so keep it out of hot loops anyway.
+     */
     public int getUnprocessedCount() {
         return dsl.select(count())
                 .from(ORDERS)
-                .where(ORDERS.VAT_AMOUNT.isNull()) // Zakładamy, że null vat_amount oznacza nieprzetworzone
+                .where(PENDING)
                 .fetchOne(0, int.class);
     }
 
-    public List<Order> findUnprocessed() {
-        return dsl.selectFrom(ORDERS)
-                .where(ORDERS.VAT_AMOUNT.isNull())
-                .limit(10)
-                .fetch(new RecordMapper<Record, Order>() {
-                    @Override
-                    public Order map(Record record) {
-                        return new Order(
-                                record.get(ORDERS.ID),
-                                record.get(ORDERS.AMOUNT),
-                                record.get(ORDERS.CURRENCY)
-                        );
-                    }
-                });
+    /**
+     * Atomically reserves up to {@code limit} unprocessed orders for the calling worker, oldest first.
+     * Rows locked by another worker's claim are skipped ({@code FOR UPDATE SKIP LOCKED}), so concurrent
+     * workers never get the same order. A claim older than {@code claimTimeout} is considered abandoned
+     * (crashed worker) and the row becomes claimable again.
+     */
+    public List<Order> claimUnprocessed(int limit, Duration claimTimeout) {
+        return claim(claim, staleSeconds(claimTimeout), limit);
+    }
+
+    /**
+     * Like {@link #claimUnprocessed(int, Duration)}, restricted to orders whose ID hashes into one of the
+     * {@code partitions} out of {@code partitionCount} (see {@link PartitionLeases}).
+     */
+    public List<Order> claimUnprocessed(int limit, Duration claimTimeout, int partitionCount, int[] partitions) {
+        if (partitions.length == 0) {
+            return List.of();
+        }
+        return claim(claimPartitions, staleSeconds(claimTimeout), partitionCount, partitions, limit);
+    }
+
+    /** Numer partycji zamówienia – ta sama funkcja musi być użyta w każdej instancji. */
+    static Field<Integer> partitionOf(Field<Integer> partitionCount) {
+        return field("(hashtext({0}::text) & 2147483647) % {1}", Integer.class, ORDERS.ID, partitionCount);
+    }
+
+    private static double staleSeconds(Duration claimTimeout) {
+        return claimTimeout.toMillis() / 1000.0;
+    }
+
+    private List<Order> claim(PreparedQuery query, Object... values) {
+        return dsl.connectionResult(c -> {
+            try (PreparedStatement ps = query.prepare(c, values);
+                 ResultSet rs = ps.executeQuery()) {
+                List<Order> claimed = new ArrayList<>();
+                while (rs.next()) {
+                    claimed.add(new Order(rs.getObject(1, UUID.class), rs.getBigDecimal(2), rs.getString(3),
+                            instant(rs.getObject(4, OffsetDateTime.class))));
+                }
+                return claimed;
+            }
+        });
+    }
+
+    private UpdateResultStep<OrdersRecord> claimQuery(Condition partitionCondition) {
+        Field<OffsetDateTime> staleBefore = field("now() - make_interval(secs => {0})",
+                OffsetDateTime.class, param("staleSeconds", Double.class));
+
+        return dsl.update(ORDERS)
+                .set(ORDERS.CLAIMED_AT, currentOffsetDateTime())
+                .where(ORDERS.ID.in(
+                        select(ORDERS.ID)
+                                .from(ORDERS)
+                                .where(PENDING)
+                                .and(ORDERS.CLAIMED_AT.isNull().or(ORDERS.CLAIMED_AT.lt(staleBefore)))
+                                .and(partitionCondition)
+                                .orderBy(ORDERS.CREATED_AT)
+                                .limit(param("limit", Integer.class))
+                                .forUpdate()
+                                .skipLocked()))
+                .returning(ORDERS.ID, ORDERS.AMOUNT, ORDERS.CURRENCY, ORDERS.CREATED_AT);
+    }
+
+    private static Instant instant(OffsetDateTime timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
     }
 
     public void truncateOrdersTable() {
@@ -77,10 +273,143 @@ public class OrderRepository {
     }
 
     public void updateOrderWithProcessedData(ProcessedOrder processedOrder) {
-        dsl.update(ORDERS)
-                .set(ORDERS.VAT_AMOUNT, processedOrder.vatAmount())
-                .set(ORDERS.TOTAL_AMOUNT, processedOrder.totalAmount())
-                .where(ORDERS.ID.eq(processedOrder.id()))
+        dsl.connection(c -> {
+            try (PreparedStatement ps = updateOrder.prepare(c,
+                    processedOrder.vatAmount(), processedOrder.totalAmount(), processedOrder.id())) {
+                ps.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Writes VAT and total of a whole batch with one {@code UPDATE ... FROM (VALUES ...)} per
+     * {@value #UPDATE_CHUNK_SIZE} orders, all in a single transaction.
+     *
+     * @return number of updated rows
+     */
+    public int updateOrdersWithProcessedData(List<ProcessedOrder> processedOrders) {
+        return updateOrdersWithProcessedData(processedOrders, List.of());
+    }
+
+    /**
+     * Same as {@link #updateOrdersWithProcessedData(List)}, additionally writing {@code outboxMessages} to
+     * ORDER_OUTBOX in the same transaction – the VAT update and its messages commit or fail together.
+     */
+    public int updateOrdersWithProcessedData(List<ProcessedOrder> processedOrders, List<OutboxMessage> outboxMessages) {
+        if (processedOrders == null || processedOrders.isEmpty()) {
+            return 0;
+        }
+        return dsl.transactionResult(tx -> {
+            DSLContext txDsl = DSL.using(tx);
+            int updated = 0;
+            for (int from = 0; from < processedOrders.size(); from += UPDATE_CHUNK_SIZE) {
+                List<ProcessedOrder> chunk = processedOrders.subList(from, Math.min(from + UPDATE_CHUNK_SIZE, processedOrders.size()));
+                updated += updateChunk(txDsl, chunk);
+            }
+            OutboxRepository.enqueue(txDsl, outboxMessages);
+            return updated;
+        });
+    }
+
+    /**
+     * Batch update that does not let one bad order sink the whole batch. When the database rejects the batch
+     * with a data or constraint error (SQLSTATE class 22 or 23, e.g. a TOTAL_AMOUNT that overflows
+     * {@code numeric(8,2)}), the batch is split in halves and each half retried in its own transaction, down
+     * to single orders; an order rejected on its own is marked {@link OrderStatus#FAILED} and dropped together
+     * with its outbox message (matched by {@link OutboxMessage#orderId()}). Other errors (connection, timeout)
+     * are rethrown unchanged – retrying row by row would not help. One bad order costs about
+     * {@code 2 * log2(n)} extra transactions.
+     *
+     * @return the orders that were stored, in input order
+     */
+    public List<ProcessedOrder> updateOrdersIsolatingRejected(List<ProcessedOrder> processedOrders,
+                                                              List<OutboxMessage> outboxMessages) {
+        if (processedOrders == null || processedOrders.isEmpty()) {
+            return List.of();
+        }
+        try {
+            updateOrdersWithProcessedData(processedOrders, outboxMessages);
+            return processedOrders;
+        } catch (DataAccessException e) {
+            if (!isRejectedRow(e)) {
+                throw e;
+            }
+            if (processedOrders.size() == 1) {
+                UUID id = processedOrders.get(0).id();
+                log.error("Order {} rejected by the database, marking it {}: {}", id, OrderStatus.FAILED, e.getMessage());
+                markFailed(List.of(id));
+                return List.of();
+            }
+            int half = processedOrders.size() / 2;
+            List<ProcessedOrder> first = processedOrders.subList(0, half);
+            List<ProcessedOrder> second = processedOrders.subList(half, processedOrders.size());
+            List<ProcessedOrder> stored = new ArrayList<>(processedOrders.size());
+            stored.addAll(updateOrdersIsolatingRejected(first, messagesOf(first, outboxMessages)));
+            stored.addAll(updateOrdersIsolatingRejected(second, messagesOf(second, outboxMessages)));
+            return stored;
+        }
+    }
+
+    /**
+     * Takes pending orders out of the claim queue for good ({@link OrderStatus#FAILED}); they keep their claim
+     * timestamp for diagnosis.
+     *
+     * @return number of orders marked
+     */
+    public int markFailed(Collection<UUID> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        return dsl.update(ORDERS)
+                .set(ORDERS.STATUS, inline(OrderStatus.FAILED.name()))
+                .where(ORDERS.ID.in(ids))
+                .and(PENDING)
+                .execute();
+    }
+
+    /** Błąd danych konkretnego wiersza (22xxx, np. numeric overflow) albo naruszenie ograniczenia (23xxx). */
+    private static boolean isRejectedRow(DataAccessException e) {
+        SQLStateClass stateClass = e.sqlStateClass();
+        return stateClass == SQLStateClass.C22_DATA_EXCEPTION
+                || stateClass == SQLStateClass.C23_INTEGRITY_CONSTRAINT_VIOLATION;
+    }
+
+    private static List<OutboxMessage> messagesOf(List<ProcessedOrder> orders, List<OutboxMessage> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return List.of();
+        }
+        Set<UUID> ids = new HashSet<>(orders.size() * 2);
+        for (ProcessedOrder order : orders) {
+            ids.add(order.id());
+        }
+        List<OutboxMessage> matching = new ArrayList<>(orders.size());
+        for (OutboxMessage message : messages) {
+            if (ids.contains(message.orderId())) {
+                matching.add(message);
+            }
+        }
+        return matching;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int updateChunk(DSLContext txDsl, List<ProcessedOrder> chunk) {
+        Row3<UUID, BigDecimal, BigDecimal>[] rows = new Row3[chunk.size()];
+        for (int i = 0; i < rows.length; i++) {
+            ProcessedOrder po = chunk.get(i);
+            rows[i] = row(po.id(), po.vatAmount(), po.totalAmount());
+        }
+        Table<Record3<UUID, BigDecimal, BigDecimal>> v = values(rows).as("v", "id", "vat_amount", "total_amount");
+        Field<UUID> id = v.field("id", UUID.class);
+        Field<BigDecimal> vatAmount = v.field("vat_amount", BigDecimal.class);
+        Field<BigDecimal> totalAmount = v.field("total_amount", BigDecimal.class);
+
+        return txDsl.update(ORDERS)
+                .set(ORDERS.VAT_AMOUNT, vatAmount)
+                .set(ORDERS.TOTAL_AMOUNT, totalAmount)
+                .set(ORDERS.STATUS, OrderStatus.PROCESSED.name())
+                .set(ORDERS.PROCESSED_AT, currentOffsetDateTime())
+                .from(v)
+                .where(ORDERS.ID.eq(id))
                 .execute();
     }
 
@@ -0,0 +1,88 @@
+package app.repository;
+
+import app.model.OutboxMessage;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.impl.DSL;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static app.jooq.tables.OrderOutbox.ORDER_OUTBOX;
+import static app.jooq.tables.Orders.ORDERS;
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.row;
+import static org.jooq.impl.DSL.select;
+
+public class OutboxRepository {
+
+    /**
+     * Publishes a batch of outbox messages; returns normally only when the broker confirmed all of them.
+     */
+    @FunctionalInterface
+    public interface BatchPublisher {
+        void publish(List<OutboxMessage> messages) throws Exception;
+    }
+
+    private final DSLContext dsl;
+
+    public OutboxRepository(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    /**
+     * Inserts messages using the given (transactional) context, so they commit or roll back together with
+     * the caller's other changes.
+     */
+    static void enqueue(DSLContext txDsl, List<OutboxMessage> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return;
+        }
+        txDsl.insertInto(ORDER_OUTBOX,
+                        ORDER_OUTBOX.ORDER_ID, ORDER_OUTBOX.EXCHANGE, ORDER_OUTBOX.ROUTING_KEY, ORDER_OUTBOX.PAYLOAD,
+                        ORDER_OUTBOX.CONTENT_TYPE)
+                .valuesOfRows(messages.stream()
+                        .map(m -> row(m.orderId(), m.exchange(), m.routingKey(), m.payload(), m.contentType()))
+                        .toList())
+                .execute();
+    }
+
+    /**
+     * Locks the oldest {@code limit} outbox rows ({@code SKIP LOCKED}, so several relays can drain in parallel),
+     * hands them to {@code publisher} and deletes them once it returns. If the publisher throws, the
+     * transaction rolls back and the rows stay for the next attempt (at-least-once delivery).
+     *
+     * @return number of relayed messages
+     */
+    public int drain(int limit, BatchPublisher publisher) {
+        return dsl.transactionResult(tx -> {
+            DSLContext txDsl = DSL.using(tx);
+            // Podzapytanie skalarne zamiast JOIN – FOR UPDATE blokuje wtedy tylko wiersze outboxa, nie ORDERS.
+            Field<OffsetDateTime> orderCreatedAt = field(select(ORDERS.CREATED_AT)
+                    .from(ORDERS)
+                    .where(ORDERS.ID.eq(ORDER_OUTBOX.ORDER_ID)));
+            List<OutboxMessage> batch = txDsl.select(ORDER_OUTBOX.asterisk(), orderCreatedAt)
+                    .from(ORDER_OUTBOX)
+                    .orderBy(ORDER_OUTBOX.ID)
+                    .limit(limit)
+                    .forUpdate()
+                    .skipLocked()
+                    .fetch(r -> new OutboxMessage(r.get(ORDER_OUTBOX.ID), r.get(ORDER_OUTBOX.ORDER_ID),
+                            r.get(ORDER_OUTBOX.EXCHANGE), r.get(ORDER_OUTBOX.ROUTING_KEY), r.get(ORDER_OUTBOX.PAYLOAD),
+                            r.get(ORDER_OUTBOX.CONTENT_TYPE),
+                            r.get(orderCreatedAt) == null ? null : r.get(orderCreatedAt).toInstant()));
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            publisher.publish(batch);
+            txDsl.deleteFrom(ORDER_OUTBOX)
+                    .where(ORDER_OUTBOX.ID.in(batch.stream().map(OutboxMessage::id).toList()))
+                    .execute();
+            return batch.size();
+        });
+    }
+
+    public int countPending() {
+        return dsl.fetchCount(ORDER_OUTBOX);
+    }
+}
@@ -0,0 +1,293 @@
+package app.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.jooq.ConnectionProvider;
+import org.jooq.DSLContext;
+import org.jooq.impl.DataSourceConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ownership of a slice of the ORDERS keyspace ({@code hash(ID) mod partitionCount}) via Postgres
+ * session-level advisory locks held on one dedicated connection.
+ * Every instance first locks a free member slot, so the number of live instances is the number of held slot
+ * locks; it then keeps {@code ceil(partitionCount / members)} partition locks, releasing extras when someone
+ * joins and picking up free partitions when someone leaves. A dead instance loses its session and with it
+ * all its locks, so its partitions are reassigned on the next rebalance of the others.
+ * <p>
+ * A partition never has two owners, since its lease is a lock. Once the membership is stable, every partition
+ * has an owner again after at most two rebalances of each member ({@code rebalanceInterval} apart):
+ * <ul>
+ *   <li>the first rebalance after a change sees the new member count and drops leases above the new target;
+ *       after that no member is above target and no lease is released any more;</li>
+ *   <li>during the second, a member below target scans all partitions and takes every free one it can. A partition
+ *       left free after that would mean every member stopped at its target, i.e. {@code members * target >=
+ *       partitionCount} leases are held – impossible while one is free.</li>
+ * </ul>
+ * When a member leaves, the others only gain target, so one rebalance each is enough.
+ * Leases only keep workers out of each other's way; row claims still guarantee that an order is processed once.
+ */
+public class PartitionLeases implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionLeases.class);
+
+    /** Przestrzenie kluczy (pierwszy argument pg_advisory_lock(int, int)) – slot członka i partycja. */
+    static final int MEMBER_LOCK_SPACE    = 0x4F524D00;
+    static final int PARTITION_LOCK_SPACE = 0x4F525000;
+    private static final int MAX_MEMBERS  = 1024;
+
+    private static final String COUNT_MEMBERS = """
+            select count(*) from pg_locks
+             where locktype = 'advisory' and granted and classid = ? and objsubid = 2
+               and database = (select oid from pg_database where datname = current_database())""";
+
+    private final ConnectionProvider connectionProvider;
+    private final int      partitionCount;
+    private final Duration rebalanceInterval;
+    private final TreeSet<Integer> held = new TreeSet<>();
+
+    private Connection connection;
+    private int        memberSlot = -1;
+    private ScheduledExecutorService rebalancer;
+    private volatile int[] owned = new int[0];
+
+    /** Licznik zmian {@link #owned} – worker czeka na nim, żeby nie przespać przejęcia partycji. */
+    private final Object changeMonitor = new Object();
+    private volatile long version;
+
+    public PartitionLeases(DSLContext dsl, int partitionCount, Duration rebalanceInterval) {
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException("Partition count must be positive: " + partitionCount);
+        }
+        this.connectionProvider = dsl.configuration().connectionProvider();
+        this.partitionCount = partitionCount;
+        this.rebalanceInterval = rebalanceInterval;
+    }
+
+    public int partitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * @return partitions currently leased by this instance (sorted; empty before the first rebalance)
+     */
+    public int[] owned() {
+        return owned;
+    }
+
+    /**
+     * @return a counter bumped whenever {@link #owned()} changes
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Waits until {@link #owned()} changes from the state seen as {@code seenVersion}.
+     *
+     * @return true if the leases changed, false on timeout
+     */
+    public boolean awaitChange(long seenVersion, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (changeMonitor) {
+            while (version == seenVersion) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(changeMonitor, remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Runs the first rebalance on the calling thread, so the worker starts with its partitions already leased,
+     * then keeps rebalancing in the background.
+     */
+    public synchronized void start() {
+        if (rebalancer != null) {
+            return;
+        }
+        rebalanceQuietly();
+        rebalancer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "partition-leases");
+            t.setDaemon(true);
+            return t;
+        });
+        rebalancer.scheduleWithFixedDelay(this::rebalanceQuietly, rebalanceInterval.toMillis(),
+                rebalanceInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void rebalanceQuietly() {
+        try {
+            rebalance();
+        } catch (SQLException e) {
+            // Przy następnym przebiegu zaczynamy od zera na nowym połączeniu.
+            log.warn("Partition lease rebalance failed, dropping all leases: {}", e.getMessage());
+            discardConnection();
+        } catch (RuntimeException e) {
+            log.error("Partition lease rebalance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    synchronized void rebalance() throws SQLException {
+        if (connection == null) {
+            connection = connectionProvider.acquire();
+            connection.setAutoCommit(true);
+        }
+        if (memberSlot < 0) {
+            memberSlot = lockMemberSlot();
+        }
+        int members = countMembers();
+        int target = (partitionCount + members - 1) / members;
+
+        while (held.size() > target) {
+            int partition = held.pollLast();
+            unlock(PARTITION_LOCK_SPACE, partition);
+        }
+        // Start od innego miejsca dla każdego slotu, żeby instancje nie walczyły o te same partycje.
+        int start = (int) ((long) memberSlot * target % partitionCount);
+        for (int i = 0; i < partitionCount && held.size() < target; i++) {
+            int partition = (start + i) % partitionCount;
+            if (!held.contains(partition) && tryLock(PARTITION_LOCK_SPACE, partition)) {
+                held.add(partition);
+            }
+        }
+        int[] now = held.stream().mapToInt(Integer::intValue).toArray();
+        if (!Arrays.equals(now, owned)) {
+            log.info("Partition leases changed: member {} of {}, owning {} of {} partitions {}.",
+                    memberSlot, members, now.length, partitionCount, Arrays.toString(now));
+            setOwned(now);
+        }
+    }
+
+    private void setOwned(int[] now) {
+        synchronized (changeMonitor) {
+            owned = now;
+            version++;
+            changeMonitor.notifyAll();
+        }
+    }
+
+    private int lockMemberSlot() throws SQLException {
+        for (int slot = 0; slot < MAX_MEMBERS; slot++) {
+            if (tryLock(MEMBER_LOCK_SPACE, slot)) {
+                return slot;
+            }
+        }
+        throw new SQLException("All " + MAX_MEMBERS + " partition member slots are taken");
+    }
+
+    private int countMembers() throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(COUNT_MEMBERS)) {
+            ps.setInt(1, MEMBER_LOCK_SPACE);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return Math.max(1, rs.getInt(1));
+            }
+        }
+    }
+
+    private boolean tryLock(int space, int key) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("select pg_try_advisory_lock(?, ?)")) {
+            ps.setInt(1, space);
+            ps.setInt(2, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(int space, int key) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("select pg_advisory_unlock(?, ?)")) {
+            ps.setInt(1, space);
+            ps.setInt(2, key);
+            ps.execute();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (rebalancer != null) {
+            rebalancer.shutdownNow();
+            rebalancer = null;
+        }
+        if (connection != null && !unlockAll()) {
+            discardConnection();
+            return;
+        }
+        releaseConnection();
+    }
+
+    /** Połączenie wraca do puli – locki sesyjne trzeba zwolnić jawnie. */
+    private boolean unlockAll() {
+        try (PreparedStatement ps = connection.prepareStatement("select pg_advisory_unlock_all()")) {
+            ps.execute();
+            return true;
+        } catch (SQLException e) {
+            log.debug("Advisory unlock failed, connection is probably broken: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * After a failure the session may still be alive and hold its locks (e.g. an aborted transaction or a statement
+     * timeout), so the connection must not go back to the pool as is: the locks are released explicitly and,
+     * since that can fail as well, the physical connection is closed – a closed session drops all its locks.
+     */
+    private synchronized void discardConnection() {
+        if (connection != null) {
+            try {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                }
+            } catch (SQLException e) {
+                log.debug("Rollback of the partition lease connection failed: {}", e.getMessage());
+            }
+            unlockAll();
+            try {
+                if (connectionProvider instanceof DataSourceConnectionProvider provider
+                        && provider.dataSource().isWrapperFor(HikariDataSource.class)) {
+                    // Hikari zamyka fizyczne połączenie od razu i nie wyda go już z puli.
+                    provider.dataSource().unwrap(HikariDataSource.class).evictConnection(connection);
+                } else {
+                    connection.abort(Runnable::run);
+                }
+            } catch (SQLException | RuntimeException e) {
+                log.warn("Could not close the partition lease connection: {}", e.getMessage());
+            }
+        }
+        releaseConnection();
+    }
+
+    private synchronized void releaseConnection() {
+        held.clear();
+        memberSlot = -1;
+        if (owned.length > 0) {
+            setOwned(new int[0]);
+        }
+        if (connection == null) {
+            return;
+        }
+        try {
+            connectionProvider.release(connection);
+        } catch (Exception e) {
+            log.warn("Problem while releasing partition lease connection", e);
+        } finally {
+            connection = null;
+        }
+    }
+}
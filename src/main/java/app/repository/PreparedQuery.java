@@ -0,0 +1,59 @@
+package app.repository;
+
+import org.jooq.DSLContext;
+import org.jooq.Query;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL of a jOOQ query rendered once, executed later with bind values only.
+ * The query must use inline constants and one named {@link org.jooq.impl.DSL#param(String, Class)} per bind
+ * value; the names are checked against the render order, so a changed query tree fails fast instead of
+ * binding values to the wrong placeholders. Identical SQL text lets pgjdbc reuse its server-side prepared
+ * statement on every pooled connection ({@code prepareThreshold}, {@code preparedStatementCacheQueries}).
+ */
+final class PreparedQuery {
+
+    private final String sql;
+    private final int    paramCount;
+
+    PreparedQuery(DSLContext dsl, Query query, String... params) {
+        List<String> rendered = query.getParams().entrySet().stream()
+                .filter(e -> !e.getValue().isInline())
+                .map(Map.Entry::getKey)
+                .toList();
+        if (!rendered.equals(List.of(params))) {
+            throw new IllegalStateException("Unexpected bind parameters " + rendered + ", expected " + List.of(params)
+                    + " in: " + dsl.render(query));
+        }
+        this.sql = dsl.render(query);
+        this.paramCount = params.length;
+    }
+
+    String sql() {
+        return sql;
+    }
+
+    /**
+     * @param values bind values in the order of the parameter names given to the constructor
+     */
+    PreparedStatement prepare(Connection connection, Object... values) throws SQLException {
+        if (values.length != paramCount) {
+            throw new IllegalArgumentException("Expected " + paramCount + " bind values, got " + values.length);
+        }
+        PreparedStatement ps = connection.prepareStatement(sql);
+        try {
+            for (int i = 0; i < values.length; i++) {
+                ps.setObject(i + 1, values[i]);
+            }
+            return ps;
+        } catch (SQLException | RuntimeException e) {
+            ps.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package app.worker;
+
+import java.time.Duration;
+import java.util.Properties;
+
+import static app.config.ConfigProperties.*;
+
+/**
+ * Limits of the {@link AdaptiveController} ({@code worker.adaptive.*} keys). The lower ends come from
+ * {@link OrderWorkerConfig}: {@code batchSize} is the smallest batch, {@code idlePollInterval} and
+ * {@code errorBackoff} are the longest idle and error waits. {@link OrderWorkerConfig} rejects an enabled
+ * config whose upper end lies below the lower one.
+ *
+ * @param maxBatchSize   largest batch the controller grows to while the backlog persists
+ * @param targetLatency  batch processing time above which the batch shrinks again
+ * @param minIdlePoll    first idle wait after work; doubles with every empty poll
+ */
+public record AdaptiveConfig(boolean enabled,
+                             int maxBatchSize,
+                             Duration targetLatency,
+                             Duration minIdlePoll) {
+
+    public AdaptiveConfig {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be positive: " + maxBatchSize);
+        }
+        if (targetLatency == null || targetLatency.isNegative() || targetLatency.isZero()) {
+            throw new IllegalArgumentException("Target latency must be positive: " + targetLatency);
+        }
+        if (minIdlePoll == null || minIdlePoll.isNegative() || minIdlePoll.isZero()) {
+            throw new IllegalArgumentException("Min idle poll must be positive: " + minIdlePoll);
+        }
+    }
+
+    public static AdaptiveConfig defaults() {
+        return new AdaptiveConfig(false, 1000, Duration.ofSeconds(1), Duration.ofMillis(50));
+    }
+
+    public static AdaptiveConfig fromProperties(Properties props) {
+        AdaptiveConfig d = defaults();
+        return new AdaptiveConfig(
+                booleanProperty(props, "worker.adaptive.enabled", d.enabled()),
+                intProperty(props, "worker.adaptive.max.batch.size", d.maxBatchSize()),
+                millisProperty(props, "worker.adaptive.target.latency.ms", d.targetLatency()),
+                millisProperty(props, "worker.adaptive.min.idle.poll.ms", d.minIdlePoll())
+        );
+    }
+}
@@ -0,0 +1,109 @@
+package app.worker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Batch size and wait times of {@link OrderWorker}.
+ * The batch doubles while claims come back full (backlog) and processing stays under the target latency,
+ * and halves when a batch takes longer than that. Idle polls back off exponentially from
+ * {@link AdaptiveConfig#minIdlePoll()} to the configured idle poll interval and snap back as soon as work
+ * shows up; consecutive errors back off the same way up to the configured error backoff.
+ * When disabled, the configured values are returned unchanged. Thread-safe.
+ */
+final class AdaptiveController implements AdaptiveControllerMXBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveController.class);
+
+    private final boolean  enabled;
+    private final int      minBatchSize;
+    private final int      maxBatchSize;
+    private final long     targetLatencyNanos;
+    private final Duration minIdle;
+    private final Duration maxIdle;
+    private final Duration maxErrorBackoff;
+
+    private int      batchSize;
+    private Duration idleWait;
+    private Duration errorBackoff;
+    private long     lastLatencyNanos;
+    private long     grows;
+    private long     shrinks;
+
+    AdaptiveController(OrderWorkerConfig config) {
+        AdaptiveConfig adaptive = config.adaptive();
+        this.enabled = adaptive.enabled();
+        this.minBatchSize = config.batchSize();
+        this.maxBatchSize = Math.max(config.batchSize(), adaptive.maxBatchSize());
+        this.targetLatencyNanos = adaptive.targetLatency().toNanos();
+        this.minIdle = min(adaptive.minIdlePoll(), config.idlePollInterval());
+        this.maxIdle = config.idlePollInterval();
+        this.maxErrorBackoff = config.errorBackoff();
+        this.batchSize = minBatchSize;
+        this.idleWait = enabled ? minIdle : maxIdle;
+        this.errorBackoff = enabled ? min(minIdle, maxErrorBackoff) : maxErrorBackoff;
+    }
+
+    synchronized int batchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Reports a processed batch: {@code claimed} of {@code requested} orders in {@code latencyNanos}.
+     */
+    synchronized void onBatch(int claimed, int requested, long latencyNanos) {
+        lastLatencyNanos = latencyNanos;
+        if (!enabled) {
+            return;
+        }
+        idleWait = minIdle;
+        errorBackoff = min(minIdle, maxErrorBackoff);
+        if (latencyNanos > targetLatencyNanos && batchSize > minBatchSize) {
+            batchSize = Math.max(minBatchSize, batchSize / 2);
+            shrinks++;
+            log.info("Batch took {} ms (target {} ms), batch size reduced to {}.",
+                    latencyNanos / 1_000_000, targetLatencyNanos / 1_000_000, batchSize);
+        } else if (claimed >= requested && latencyNanos <= targetLatencyNanos && batchSize < maxBatchSize) {
+            batchSize = Math.min(maxBatchSize, batchSize * 2);
+            grows++;
+            log.debug("Backlog persists, batch size increased to {}.", batchSize);
+        }
+    }
+
+    /**
+     * @return how long to wait after an empty poll; every call doubles the next wait
+     */
+    synchronized Duration nextIdleWait() {
+        Duration wait = idleWait;
+        if (enabled) {
+            idleWait = min(idleWait.multipliedBy(2), maxIdle);
+        }
+        return wait;
+    }
+
+    /**
+     * @return how long to wait after a failed iteration; every call doubles the next wait
+     */
+    synchronized Duration nextErrorBackoff() {
+        Duration wait = errorBackoff;
+        if (enabled) {
+            errorBackoff = min(errorBackoff.multipliedBy(2), maxErrorBackoff);
+        }
+        return wait;
+    }
+
+    synchronized AdaptiveStats stats() {
+        return new AdaptiveStats(batchSize, idleWait.toMillis(), errorBackoff.toMillis(), lastLatencyNanos / 1_000_000, grows, shrinks);
+    }
+
+    @Override
+    public AdaptiveStats getStats() {
+        return stats();
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
@@ -0,0 +1,12 @@
+package app.worker;
+
+/**
+ * JMX view of the adaptive batch size and wait times of an {@link OrderWorker}, in every execution mode.
+ */
+public interface AdaptiveControllerMXBean {
+
+    /**
+     * @return all {@link AdaptiveStats} values read at the same moment (waits and latency in milliseconds)
+     */
+    AdaptiveStats getStats();
+}
@@ -0,0 +1,23 @@
+package app.worker;
+
+/**
+ * Current values of the {@link AdaptiveController}, in milliseconds. Plain numbers only, so JMX maps it to one
+ * composite value item by item (see {@link AdaptiveControllerMXBean}).
+ *
+ * @param idleWaitMillis     wait before the next poll if it finds nothing
+ * @param lastLatencyMillis  processing time of the last non-empty batch
+ * @param grows              how often the batch size was increased; {@code shrinks} likewise
+ */
+public record AdaptiveStats(int batchSize,
+                            long idleWaitMillis,
+                            long errorBackoffMillis,
+                            long lastLatencyMillis,
+                            long grows,
+                            long shrinks) {
+
+    @Override
+    public String toString() {
+        return String.format("batch=%d, idleWait=%dms, errorBackoff=%dms, lastLatency=%dms, grows=%d, shrinks=%d",
+                batchSize, idleWaitMillis, errorBackoffMillis, lastLatencyMillis, grows, shrinks);
+    }
+}
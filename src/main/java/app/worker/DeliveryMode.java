@@ -0,0 +1,13 @@
+package app.worker;
+
+/**
+ * How {@link OrderWorker} hands processed orders over to RabbitMQ.
+ */
+public enum DeliveryMode {
+
+    /** Publish right after the VAT update; a failed publish is only logged. */
+    DIRECT,
+
+    /** Write the message to ORDER_OUTBOX in the VAT update transaction; {@code app.mq.OutboxRelay} publishes it. */
+    OUTBOX
+}
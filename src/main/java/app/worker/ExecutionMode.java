@@ -0,0 +1,41 @@
+package app.worker;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * How {@link OrderWorker} runs the orders of one claimed batch.
+ */
+public enum ExecutionMode {
+
+    /** One order after another on the worker thread. */
+    SEQUENTIAL,
+
+    /**
+     * The publish of every order on its own virtual thread (Java 21+ runtime), so broker waits overlap; VAT and the
+     * batched UPDATE stay on the worker thread.
+     */
+    VIRTUAL_THREADS,
+
+    /** Fetch, compute, persist and publish as separate stages connected by bounded queues, see {@link Pipeline}. */
+    PIPELINE;
+
+    /**
+     * @return executor for per-order tasks, or {@code null} when orders run on the calling thread
+     */
+    ExecutorService newOrderExecutor() {
+        if (this != VIRTUAL_THREADS) {
+            return null;
+        }
+        // Refleksja: projekt kompiluje się na Java 17, wirtualne wątki są dostępne dopiero w runtime 21+.
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Execution mode " + this + " requires a Java 21+ runtime", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create virtual thread executor", e);
+        }
+    }
+}
@@ -1,16 +1,35 @@
 package app.worker;
 
 import app.model.Order;
+import app.model.OutboxMessage;
 import app.model.ProcessedOrder;
+import app.mq.BatchingPublisher;
+import app.mq.MessageFormat;
+import app.mq.MessageTimestamps;
+import app.mq.ProcessedOrderBinaryCodec;
+import app.mq.ProcessedOrderJsonEncoder;
 import app.mq.RabbitMqClient;
+import app.repository.OrderInsertListener;
 import app.repository.OrderRepository;
+import app.repository.PartitionLeases;
+import com.rabbitmq.client.AMQP;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class OrderWorker implements Runnable {
 
@@ -19,33 +38,92 @@ public class OrderWorker implements Runnable {
     private final OrderRepository orderRepository;
     private final RabbitMqClient rabbitMqClient;
     private final String          queueName;
+    private final OrderWorkerConfig config;
+    private final OrderInsertListener insertListener;
+    private final PartitionLeases partitionLeases;
+    private final Semaphore       inFlightOrders;
+    private final ReentrantLock   listenLock = new ReentrantLock();
+    private volatile Pipeline     pipeline;
+    private final BatchingPublisher batchingPublisher;
+    private final VatCalculator   vatCalculator;
+    private final AdaptiveController adaptive;
+    private final WorkerMetrics   metrics;
 
     private volatile boolean running = true;
 
-    private static final BigDecimal VAT_RATE = new BigDecimal("0.23");
-    private static final int        SCALE    = 2;
+    private static final Duration   LISTEN_SLICE = Duration.ofMillis(500);
+    private static final Duration   PIPELINE_DRAIN_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration   METRICS_WINDOW = Duration.ofMinutes(1);
+
+    /** Enkoder trzyma bufor wielokrotnego użytku – jeden na wątek (publikacja idzie z kilku wątków). */
+    private static final ThreadLocal<ProcessedOrderJsonEncoder> JSON_ENCODER =
+            ThreadLocal.withInitial(ProcessedOrderJsonEncoder::new);
 
     public OrderWorker(OrderRepository orderRepository, RabbitMqClient rabbitMqClient, String queueName) {
+        this(orderRepository, rabbitMqClient, queueName, OrderWorkerConfig.defaults());
+    }
+
+    public OrderWorker(OrderRepository orderRepository, RabbitMqClient rabbitMqClient, String queueName,
+                       OrderWorkerConfig config) {
+        this(orderRepository, rabbitMqClient, queueName, config, null);
+    }
+
+    /**
+     * @param insertListener optional; when given, an idle worker wakes up on the ORDERS insert notification
+     *                       and only falls back to polling every {@link OrderWorkerConfig#listenFallbackPoll()}
+     */
+    public OrderWorker(OrderRepository orderRepository, RabbitMqClient rabbitMqClient, String queueName,
+                       OrderWorkerConfig config, OrderInsertListener insertListener) {
+        this(orderRepository, rabbitMqClient, queueName, config, insertListener, null);
+    }
+
+    /**
+     * @param partitionLeases optional; when given, the worker only claims orders of the partitions leased
+     *                        by this instance
+     */
+    public OrderWorker(OrderRepository orderRepository, RabbitMqClient rabbitMqClient, String queueName,
+                       OrderWorkerConfig config, OrderInsertListener insertListener, PartitionLeases partitionLeases) {
         this.orderRepository = orderRepository;
         this.rabbitMqClient = rabbitMqClient;
         this.queueName = queueName;
+        this.config = config;
+        this.insertListener = insertListener;
+        this.partitionLeases = partitionLeases;
+        this.inFlightOrders = new Semaphore(config.maxConcurrency());
+        this.vatCalculator = new VatCalculator(config.vatEngine());
+        this.adaptive = new AdaptiveController(config);
+        this.metrics = new WorkerMetrics(METRICS_WINDOW, adaptive);
+        this.batchingPublisher = config.publishBatchSize() > 1 && config.deliveryMode() == DeliveryMode.DIRECT
+                ? new BatchingPublisher(rabbitMqClient, "", queueName, config.publishBatchSize(),
+                        config.publishBatchLinger(), config.publisherConfirms(), config.messageFormat().contentType())
+                : null;
     }
 
     @Override
     public void run() {
-        log.info("OrderWorker started...");
+        log.info("OrderWorker started ({} mode)...", config.executionMode());
+        if (config.executionMode() == ExecutionMode.PIPELINE) {
+            runPipeline();
+            return;
+        }
+        ExecutorService orderExecutor = config.executionMode().newOrderExecutor();
+        if (partitionLeases != null) {
+            partitionLeases.start();
+        }
+        startListening();
         while (running) {
             try {
-                int unprocessedCount = orderRepository.getUnprocessedCount();
-                if (unprocessedCount > 0) {
-                    log.info("Found {} unprocessed orders. Processing...", unprocessedCount);
-                    List<Order> unprocessedOrders = orderRepository.findUnprocessed();
-
-                    for (Order order : unprocessedOrders) {
-                        processOrder(order);
-                    }
+                int batchSize = adaptive.batchSize();
+                long started = System.nanoTime();
+                List<Order> claimedOrders = claim(batchSize);
+                if (!claimedOrders.isEmpty()) {
+                    log.info("Claimed {} unprocessed orders. Processing...", claimedOrders.size());
+                    processBatch(claimedOrders, orderExecutor);
+                    long elapsed = System.nanoTime() - started;
+                    metrics.batch().record(elapsed);
+                    adaptive.onBatch(claimedOrders.size(), batchSize, elapsed);
                 } else {
-                    Thread.sleep(5000);
+                    awaitWork();
                 }
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
@@ -54,53 +132,387 @@ public class OrderWorker implements Runnable {
             } catch (Exception e) {
                 log.error("Error in OrderWorker: {}", e.getMessage(), e);
                 try {
-                    Thread.sleep(10000);
+                    Thread.sleep(adaptive.nextErrorBackoff().toMillis());
                 } catch (InterruptedException ie) {
                     Thread.currentThread().interrupt();
                     running = false;
                 }
             }
         }
+        if (orderExecutor != null) {
+            orderExecutor.shutdown();
+        }
+        if (batchingPublisher != null) {
+            batchingPublisher.close();
+        }
+        if (insertListener != null) {
+            insertListener.close();
+        }
+        if (partitionLeases != null) {
+            partitionLeases.close();
+        }
         log.info("OrderWorker stopped.");
     }
 
-    private void processOrder(Order order) {
-        log.info("Processing order: {}", order.id());
+    private void startListening() {
+        if (insertListener == null) {
+            return;
+        }
+        try {
+            insertListener.start();
+        } catch (SQLException e) {
+            log.warn("Could not LISTEN for order inserts, polling until the next attempt: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Idle wait: sleeps the (adaptive) poll interval, or – in listen mode – returns as soon as an insert notification
+     * arrives, but no later than the fallback poll interval in case a notification was missed. Either wait also ends
+     * early when the partition leases change.
+     */
+    private void awaitWork() throws InterruptedException {
+        // Przejęte partycje (np. po odejściu innej instancji) też są pracą – nie przesypiamy ich do końca oczekiwania.
+        long leaseVersion = partitionLeases == null ? 0 : partitionLeases.version();
+        if (insertListener == null) {
+            Duration wait = adaptive.nextIdleWait();
+            if (partitionLeases == null) {
+                Thread.sleep(wait.toMillis());
+            } else if (partitionLeases.awaitChange(leaseVersion, wait)) {
+                log.debug("Woken up by a partition lease change.");
+            }
+            return;
+        }
+        long deadline = System.nanoTime() + config.listenFallbackPoll().toNanos();
+        // Połączenie LISTEN obsługuje jeden wątek naraz (w trybie PIPELINE może być kilka wątków fetch).
+        listenLock.lockInterruptibly();
+        try {
+            while (running) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return;
+                }
+                // Krótkie odcinki oczekiwania, żeby stop() nie czekał na cały fallback poll.
+                if (insertListener.awaitInsert(Duration.ofNanos(Math.min(remaining, LISTEN_SLICE.toNanos())))) {
+                    log.debug("Woken up by '{}' notification.", OrderInsertListener.CHANNEL);
+                    return;
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (partitionLeases != null && partitionLeases.version() != leaseVersion) {
+                    log.debug("Woken up by a partition lease change.");
+                    return;
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("LISTEN connection failed, polling instead: {}", e.getMessage());
+            Thread.sleep(adaptive.nextIdleWait().toMillis());
+        } finally {
+            listenLock.unlock();
+        }
+    }
+
+    /**
+     * Runs the batch flow as a {@link Pipeline}: fetch → compute → persist → publish, each stage on its own
+     * threads. The calling thread only supervises and periodically logs the stage statistics.
+     */
+    private void runPipeline() {
+        PipelineConfig pc = config.pipeline();
+        Pipeline.Builder<List<ProcessedOrder>> stages = Pipeline.source("fetch", pc.fetchThreads(), ignored -> fetchBatch())
+                .then("compute", pc.computeThreads(), pc.queueCapacity(), this::computeBatch)
+                .then("persist", pc.persistThreads(), pc.queueCapacity(), this::persistBatch);
+        // W trybie OUTBOX wiadomości wychodzą razem z zapisem – publikuje je OutboxRelay.
+        Pipeline p = config.deliveryMode() == DeliveryMode.OUTBOX
+                ? stages.build()
+                : stages.then("publish", pc.publishThreads(), pc.queueCapacity(), this::publishBatch).build();
+        if (partitionLeases != null) {
+            partitionLeases.start();
+        }
+        startListening();
+        pipeline = p;
+        p.start();
+        try {
+            long nextStats = System.nanoTime() + pc.statsInterval().toNanos();
+            while (running) {
+                Thread.sleep(LISTEN_SLICE.toMillis());
+                if (System.nanoTime() - nextStats >= 0) {
+                    log.info("Pipeline stats: {}, adaptive: {}, latency: {}", p.stats(), adaptive.stats(), metrics);
+                    nextStats = System.nanoTime() + pc.statsInterval().toNanos();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("OrderWorker thread interrupted. Shutting down.");
+            running = false;
+        } finally {
+            try {
+                p.stop(PIPELINE_DRAIN_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (batchingPublisher != null) {
+                batchingPublisher.close();
+            }
+            if (insertListener != null) {
+                insertListener.close();
+            }
+            if (partitionLeases != null) {
+                partitionLeases.close();
+            }
+            log.info("OrderWorker stopped.");
+        }
+    }
+
+    /**
+     * @return statistics of every pipeline stage, empty when the worker does not run in {@link ExecutionMode#PIPELINE}
+     */
+    public List<StageStats> pipelineStats() {
+        Pipeline p = pipeline;
+        return p == null ? List.of() : p.stats();
+    }
+
+    /**
+     * @return current batch size and wait times; fixed configured values unless {@link AdaptiveConfig#enabled()}
+     */
+    public AdaptiveStats adaptiveStats() {
+        return adaptive.stats();
+    }
+
+    /**
+     * @return per-stage latency histograms and adaptive stats, to be registered over JMX with {@link WorkerMetrics#register}
+     */
+    public WorkerMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Claims the next batch; with partition leases only from the partitions this instance owns right now.
+     */
+    private List<Order> claim(int limit) {
+        long started = System.nanoTime();
         try {
-            BigDecimal vatAmount = order.amount().multiply(VAT_RATE).setScale(SCALE, RoundingMode.HALF_UP);
-            BigDecimal totalAmount = order.amount().add(vatAmount).setScale(SCALE, RoundingMode.HALF_UP);
+            if (partitionLeases == null) {
+                return orderRepository.claimUnprocessed(limit, config.claimTimeout());
+            }
+            return orderRepository.claimUnprocessed(limit, config.claimTimeout(),
+                    partitionLeases.partitionCount(), partitionLeases.owned());
+        } finally {
+            metrics.claim().record(System.nanoTime() - started);
+        }
+    }
 
-            ProcessedOrder processedOrder = new ProcessedOrder(
-                    order.id(),
-                    order.amount(),
-                    order.currency(),
-                    vatAmount,
-                    totalAmount
-            );
+    private List<Order> fetchBatch() throws InterruptedException {
+        int batchSize = adaptive.batchSize();
+        long started = System.nanoTime();
+        List<Order> claimed;
+        try {
+            claimed = claim(batchSize);
+        } catch (RuntimeException e) {
+            // Etap źródła woła fetch w pętli – bez backoffu awaria bazy kręciłaby rdzeniem i zalewała log (jak w SEQUENTIAL).
+            Thread.sleep(adaptive.nextErrorBackoff().toMillis());
+            throw e;
+        }
+        if (claimed.isEmpty()) {
+            awaitWork();
+            return null;
+        }
+        // Dalsze etapy biegną równolegle – w trybie PIPELINE steruje tylko czas samego claimu.
+        adaptive.onBatch(claimed.size(), batchSize, System.nanoTime() - started);
+        log.info("Claimed {} unprocessed orders. Processing...", claimed.size());
+        return claimed;
+    }
+
+    /**
+     * VAT for every order of the batch; an order whose calculation throws (e.g. a {@link VatEngine#VERIFY}
+     * mismatch) is logged and left out, the rest of the batch goes on.
+     */
+    private List<ProcessedOrder> computeBatch(List<Order> orders) {
+        List<ProcessedOrder> processed = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            try {
+                processed.add(vatCalculator.apply(order));
+            } catch (RuntimeException e) {
+                // Zamówienie zostaje zajęte i wróci do przetworzenia po claim timeout – nie blokuje reszty partii.
+                log.error("VAT calculation of order {} failed, leaving it out of the batch: {}", order.id(), e.getMessage(), e);
+            }
+        }
+        return processed;
+    }
 
-            orderRepository.updateOrderWithProcessedData(processedOrder);
-            log.info("Order {} updated in DB with VAT: {} and Total: {}.", order.id(), vatAmount, totalAmount);
+    private List<ProcessedOrder> persistBatch(List<ProcessedOrder> orders) {
+        return persist(orders);
+    }
+
+    /**
+     * Batched VAT update; in {@link DeliveryMode#OUTBOX} mode the messages are written in the same transaction.
+     * Orders the database rejects are isolated and marked FAILED
+     * (see {@link OrderRepository#updateOrdersIsolatingRejected}); any other error fails the whole batch, whose
+     * orders stay claimed until the claim timeout.
+     *
+     * @return the orders that were stored – only these may be published
+     */
+    private List<ProcessedOrder> persist(List<ProcessedOrder> orders) {
+        long started = System.nanoTime();
+        List<OutboxMessage> messages = List.of();
+        if (config.deliveryMode() == DeliveryMode.OUTBOX) {
+            messages = new ArrayList<>(orders.size());
+            for (ProcessedOrder order : orders) {
+                messages.add(OutboxMessage.of(order.id(), "", queueName, buildRabbitMqMessage(order),
+                        config.messageFormat().contentType()));
+            }
+        }
+        List<ProcessedOrder> stored = orderRepository.updateOrdersIsolatingRejected(orders, messages);
+        metrics.update().record(System.nanoTime() - started);
+        if (config.deliveryMode() == DeliveryMode.OUTBOX) {
+            log.info("{} orders updated in DB with VAT and total amounts, {} messages queued in outbox.",
+                    stored.size(), stored.size());
+        } else {
+            log.info("{} orders updated in DB with VAT and total amounts.", stored.size());
+        }
+        if (stored.size() < orders.size()) {
+            log.warn("{} orders of the batch rejected by the database and marked FAILED.", orders.size() - stored.size());
+        }
+        return stored;
+    }
+
+    private List<ProcessedOrder> publishBatch(List<ProcessedOrder> orders) throws InterruptedException {
+        List<CompletableFuture<Void>> confirms = new ArrayList<>(orders.size());
+        for (ProcessedOrder order : orders) {
+            confirms.add(publishQuietly(order));
+        }
+        awaitConfirms(confirms);
+        return null;
+    }
+
+    /**
+     * Processes the claimed batch and returns once every order of it is done: VAT for all orders, one batched
+     * UPDATE, then the publishes of the orders that were stored (in {@link DeliveryMode#OUTBOX} mode the UPDATE
+     * transaction already carries the messages and nothing is published here). With an executor every publish runs
+     * as its own task, at most {@link OrderWorkerConfig#maxConcurrency()} at a time – each holds a pooled publisher
+     * channel, not a DB connection. With publisher confirms the batch waits once for all broker confirms at the end
+     * instead of after every message.
+     */
+    private void processBatch(List<Order> orders, ExecutorService orderExecutor) throws InterruptedException {
+        List<ProcessedOrder> processedOrders = persist(computeBatch(orders));
+        if (config.deliveryMode() == DeliveryMode.OUTBOX) {
+            return;
+        }
 
-            String message = buildRabbitMqMessage(processedOrder);
-            rabbitMqClient.publishMessage("", queueName, message);
-            log.info("Order {} message published to RabbitMQ.", order.id());
+        if (orderExecutor == null) {
+            publishBatch(processedOrders);
+            return;
+        }
+        List<Future<CompletableFuture<Void>>> tasks = new ArrayList<>(processedOrders.size());
+        for (ProcessedOrder processedOrder : processedOrders) {
+            inFlightOrders.acquire();
+            try {
+                tasks.add(orderExecutor.submit(() -> {
+                    try {
+                        return publishQuietly(processedOrder);
+                    } finally {
+                        inFlightOrders.release();
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                inFlightOrders.release();
+                throw e;
+            }
+        }
+        List<CompletableFuture<Void>> confirms = new ArrayList<>(tasks.size());
+        for (Future<CompletableFuture<Void>> task : tasks) {
+            try {
+                confirms.add(task.get());
+            } catch (ExecutionException e) {
+                log.error("Order task failed: {}", e.getCause().getMessage(), e.getCause());
+            }
+        }
+        awaitConfirms(confirms);
+    }
 
+    /**
+     * @return broker confirm of the message (already completed when confirms are off), or {@code null} when
+     *         the publish itself failed and was logged
+     */
+    private CompletableFuture<Void> publishQuietly(ProcessedOrder processedOrder) {
+        try {
+            return publish(processedOrder);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Publishing of order {} interrupted.", processedOrder.id());
         } catch (IOException e) {
-            log.error("Failed to publish message for order {}: {}", order.id(), e.getMessage(), e);
+            log.error("Failed to publish message for order {}: {}", processedOrder.id(), e.getMessage(), e);
         } catch (Exception e) {
-            log.error("Failed to process order {}: {}", order.id(), e.getMessage(), e);
+            log.error("Failed to process order {}: {}", processedOrder.id(), e.getMessage(), e);
         }
+        return null;
     }
 
-    private String buildRabbitMqMessage(ProcessedOrder processedOrder) {
-        return String.format(
-                "{\"id\":\"%s\",\"originalAmount\":%s,\"currency\":\"%s\",\"vatAmount\":%s,\"totalAmount\":%s}",
-                processedOrder.id(),
-                processedOrder.originalAmount().toPlainString(), // ZMIANA TUTAJ
-                processedOrder.currency(),
-                processedOrder.vatAmount().toPlainString(),     // ZMIANA TUTAJ
-                processedOrder.totalAmount().toPlainString()    // ZMIANA TUTAJ
-        );
+    /**
+     * Waits for the broker confirms of one batch. Nacked messages are logged by their own futures; the orders
+     * are already persisted, so there is nothing to roll back here (use {@link DeliveryMode#OUTBOX} for retries).
+     */
+    private void awaitConfirms(List<CompletableFuture<Void>> confirms) throws InterruptedException {
+        if (!config.publisherConfirms()) {
+            return;
+        }
+        CompletableFuture<?>[] pending = confirms.stream().filter(c -> c != null).toArray(CompletableFuture<?>[]::new);
+        try {
+            CompletableFuture.allOf(pending).get(config.confirmTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Szczegóły już zalogowane przez future danej wiadomości.
+        } catch (TimeoutException e) {
+            long unconfirmed = confirms.stream().filter(c -> c != null && !c.isDone()).count();
+            log.error("{} messages not confirmed by the broker within {}.", unconfirmed, config.confirmTimeout());
+        }
+    }
+
+    private CompletableFuture<Void> publish(ProcessedOrder processedOrder) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        byte[] message = buildRabbitMqMessage(processedOrder);
+        CompletableFuture<Void> sent;
+        if (batchingPublisher != null) {
+            sent = batchingPublisher.add(message);
+        } else if (config.publisherConfirms()) {
+            sent = rabbitMqClient.publishConfirmed("", queueName, messageProperties(processedOrder), message);
+        } else {
+            rabbitMqClient.publishMessage("", queueName, messageProperties(processedOrder), message);
+            metrics.publish().record(System.nanoTime() - started);
+            recordLag(processedOrder);
+            log.info("Order {} message published to RabbitMQ.", processedOrder.id());
+            return CompletableFuture.completedFuture(null);
+        }
+        return sent.whenComplete((ignored, failure) -> {
+            if (failure == null) {
+                metrics.publish().record(System.nanoTime() - started);
+                recordLag(processedOrder);
+                log.info("Order {} message published to RabbitMQ{}.", processedOrder.id(),
+                        config.publisherConfirms() ? " and confirmed" : "");
+            } else {
+                log.error("Message for order {} not delivered to the broker: {}", processedOrder.id(), failure.getMessage());
+            }
+        });
+    }
+
+    private AMQP.BasicProperties messageProperties(ProcessedOrder processedOrder) {
+        return MessageTimestamps.stamp(config.messageFormat().properties(), processedOrder.createdAt(),
+                System.currentTimeMillis());
+    }
+
+    private void recordLag(ProcessedOrder processedOrder) {
+        if (processedOrder.createdAt() != null) {
+            metrics.lag().record(Math.max(0, System.currentTimeMillis() - processedOrder.createdAt().toEpochMilli()) * 1_000_000);
+        }
+    }
+
+    /**
+     * Order message in the configured {@link MessageFormat}; JSON is byte-identical to the former
+     * {@code String.format} with {@code toPlainString()} amounts.
+     */
+    private byte[] buildRabbitMqMessage(ProcessedOrder processedOrder) {
+        if (config.messageFormat() == MessageFormat.BINARY) {
+            return ProcessedOrderBinaryCodec.encode(processedOrder);
+        }
+        return JSON_ENCODER.get().encode(processedOrder);
     }
 
     public void stop() {
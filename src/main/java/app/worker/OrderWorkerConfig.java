@@ -0,0 +1,132 @@
+package app.worker;
+
+import app.mq.ChannelPoolConfig;
+import app.mq.MessageFormat;
+
+import java.time.Duration;
+import java.util.Properties;
+
+import static app.config.ConfigProperties.*;
+
+/**
+ * Tuning knobs of {@link OrderWorker}.
+ * Values can be read from the same properties file as the rest of the worker wiring ({@code worker.*} keys).
+ * A {@code publishBatchSize} above 1 packs order messages into {@link app.mq.BatchEnvelope}s.
+ * A {@code partitionCount} above 0 splits ORDERS between instances, see {@link app.repository.PartitionLeases}.
+ * {@code adaptive} lets the batch size and idle polling follow the load, see {@link AdaptiveController}.
+ */
+public record OrderWorkerConfig(int batchSize,
+                                Duration claimTimeout,
+                                Duration idlePollInterval,
+                                Duration errorBackoff,
+                                boolean listenForInserts,
+                                Duration listenFallbackPoll,
+                                ExecutionMode executionMode,
+                                int maxConcurrency,
+                                PipelineConfig pipeline,
+                                DeliveryMode deliveryMode,
+                                boolean publisherConfirms,
+                                Duration confirmTimeout,
+                                int publishBatchSize,
+                                Duration publishBatchLinger,
+                                MessageFormat messageFormat,
+                                VatEngine vatEngine,
+                                int partitionCount,
+                                Duration partitionRebalanceInterval,
+                                AdaptiveConfig adaptive) {
+
+    public OrderWorkerConfig {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        if (claimTimeout == null || claimTimeout.isNegative() || claimTimeout.isZero()) {
+            throw new IllegalArgumentException("Claim timeout must be positive: " + claimTimeout);
+        }
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Max concurrency must be positive: " + maxConcurrency);
+        }
+        if (confirmTimeout == null || confirmTimeout.isNegative() || confirmTimeout.isZero()) {
+            throw new IllegalArgumentException("Confirm timeout must be positive: " + confirmTimeout);
+        }
+        if (messageFormat == null) {
+            throw new IllegalArgumentException("Message format is required");
+        }
+        if (vatEngine == null) {
+            throw new IllegalArgumentException("VAT engine is required");
+        }
+        if (partitionCount < 0) {
+            throw new IllegalArgumentException("Partition count cannot be negative: " + partitionCount);
+        }
+        if (adaptive == null) {
+            throw new IllegalArgumentException("Adaptive config is required");
+        }
+        if (adaptive.enabled()) {
+            if (adaptive.maxBatchSize() < batchSize) {
+                throw new IllegalArgumentException("Adaptive max batch size " + adaptive.maxBatchSize()
+                        + " is below the batch size " + batchSize);
+            }
+            if (idlePollInterval == null || idlePollInterval.isNegative() || idlePollInterval.isZero()) {
+                throw new IllegalArgumentException("Idle poll interval must be positive: " + idlePollInterval);
+            }
+            if (adaptive.minIdlePoll().compareTo(idlePollInterval) > 0) {
+                throw new IllegalArgumentException("Adaptive min idle poll " + adaptive.minIdlePoll()
+                        + " is above the idle poll interval " + idlePollInterval);
+            }
+            // Backoff błędów rośnie przez podwajanie – od zera nigdy by nie urósł.
+            if (errorBackoff == null || errorBackoff.isNegative() || errorBackoff.isZero()) {
+                throw new IllegalArgumentException("Error backoff must be positive: " + errorBackoff);
+            }
+        }
+        if (publishBatchSize <= 0) {
+            throw new IllegalArgumentException("Publish batch size must be positive: " + publishBatchSize);
+        }
+        if (publishBatchLinger == null || publishBatchLinger.isNegative() || publishBatchLinger.isZero()) {
+            throw new IllegalArgumentException("Publish batch linger must be positive: " + publishBatchLinger);
+        }
+    }
+
+    public static OrderWorkerConfig defaults() {
+        return new OrderWorkerConfig(10, Duration.ofSeconds(60), Duration.ofSeconds(5), Duration.ofSeconds(10),
+                false, Duration.ofSeconds(30), ExecutionMode.SEQUENTIAL, ChannelPoolConfig.defaults().channels(),
+                PipelineConfig.defaults(), DeliveryMode.DIRECT, false, Duration.ofSeconds(5),
+                1, Duration.ofMillis(20), MessageFormat.JSON, VatEngine.BIGDECIMAL,
+                0, Duration.ofSeconds(5), AdaptiveConfig.defaults());
+    }
+
+    public static OrderWorkerConfig fromProperties(Properties props) {
+        OrderWorkerConfig d = defaults();
+        return new OrderWorkerConfig(
+                intProperty(props, "worker.batch.size", d.batchSize()),
+                millisProperty(props, "worker.claim.timeout.ms", d.claimTimeout()),
+                millisProperty(props, "worker.idle.poll.ms", d.idlePollInterval()),
+                millisProperty(props, "worker.error.backoff.ms", d.errorBackoff()),
+                booleanProperty(props, "worker.listen.enabled", d.listenForInserts()),
+                millisProperty(props, "worker.listen.fallback.poll.ms", d.listenFallbackPoll()),
+                enumProperty(props, "worker.execution.mode", d.executionMode()),
+                intProperty(props, "worker.max.concurrency", d.maxConcurrency()),
+                PipelineConfig.fromProperties(props),
+                enumProperty(props, "worker.delivery.mode", d.deliveryMode()),
+                booleanProperty(props, "worker.publish.confirms", d.publisherConfirms()),
+                millisProperty(props, "worker.publish.confirm.timeout.ms", d.confirmTimeout()),
+                intProperty(props, "worker.publish.batch.size", d.publishBatchSize()),
+                millisProperty(props, "worker.publish.batch.linger.ms", d.publishBatchLinger()),
+                enumProperty(props, "worker.message.format", d.messageFormat()),
+                enumProperty(props, "worker.vat.engine", d.vatEngine()),
+                intProperty(props, "worker.partitions.count", d.partitionCount()),
+                millisProperty(props, "worker.partitions.rebalance.ms", d.partitionRebalanceInterval()),
+                AdaptiveConfig.fromProperties(props)
+        );
+    }
+
+    /**
+     * Caps the number of orders published at once in {@link ExecutionMode#VIRTUAL_THREADS} mode, e.g. to the
+     * publisher channel pool size ({@link ChannelPoolConfig#channels()}) so that virtual threads queue
+     * on the semaphore instead of on the channel borrow timeout.
+     */
+    public OrderWorkerConfig withMaxConcurrency(int maxConcurrency) {
+        return new OrderWorkerConfig(batchSize, claimTimeout, idlePollInterval, errorBackoff,
+                listenForInserts, listenFallbackPoll, executionMode, maxConcurrency, pipeline, deliveryMode,
+                publisherConfirms, confirmTimeout, publishBatchSize, publishBatchLinger, messageFormat, vatEngine,
+                partitionCount, partitionRebalanceInterval, adaptive);
+    }
+}
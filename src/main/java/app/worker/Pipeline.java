@@ -0,0 +1,217 @@
+package app.worker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chain of stages connected by bounded hand-off queues.
+ * The source stage is called in a loop and is expected to block while there is nothing to emit.
+ * Every stage has its own threads; when a stage falls behind its queue fills up and the upstream
+ * threads block on {@code put}, so backpressure propagates all the way to the source.
+ *
+ * <pre>
+ * Pipeline pipeline = Pipeline.source("fetch", 1, ignored -> fetchBatch())
+ *         .then("compute", 2, 4, this::compute)
+ *         .then("publish", 1, 4, this::publish)
+ *         .build();
+ * </pre>
+ */
+public final class Pipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(Pipeline.class);
+
+    private static final long POLL_MILLIS = 100;
+
+    private final List<Stage<?, ?>> stages;
+    private volatile boolean started;
+
+    private Pipeline(List<Stage<?, ?>> stages) {
+        this.stages = List.copyOf(stages);
+    }
+
+    public static <O> Builder<O> source(String name, int threads, StageHandler<Void, O> handler) {
+        List<Stage<?, ?>> stages = new ArrayList<>();
+        stages.add(new Stage<>(name, threads, 0, handler));
+        return new Builder<>(stages);
+    }
+
+    public static final class Builder<T> {
+        private final List<Stage<?, ?>> stages;
+
+        private Builder(List<Stage<?, ?>> stages) {
+            this.stages = stages;
+        }
+
+        public <O> Builder<O> then(String name, int threads, int queueCapacity, StageHandler<T, O> handler) {
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+            }
+            stages.add(new Stage<>(name, threads, queueCapacity, handler));
+            return new Builder<>(stages);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public Pipeline build() {
+            for (int i = 0; i < stages.size() - 1; i++) {
+                ((Stage) stages.get(i)).next = stages.get(i + 1);
+            }
+            return new Pipeline(stages);
+        }
+    }
+
+    public synchronized void start() {
+        if (started) {
+            throw new IllegalStateException("Pipeline already started");
+        }
+        started = true;
+        stages.forEach(Stage::start);
+        log.info("Pipeline started: {}", stages.stream().map(s -> s.name + "x" + s.threads).toList());
+    }
+
+    /**
+     * Stops the source and lets every following stage drain its queue before its threads exit.
+     * Stages still busy after {@code timeout} are interrupted.
+     */
+    public synchronized void stop(Duration timeout) throws InterruptedException {
+        if (!started) {
+            return;
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (Stage<?, ?> stage : stages) {
+            stage.finish();
+            stage.join(deadline);
+        }
+        started = false;
+        log.info("Pipeline stopped: {}", stats());
+    }
+
+    public List<StageStats> stats() {
+        return stages.stream().map(Stage::stats).toList();
+    }
+
+    private static final class Stage<I, O> {
+        private final String name;
+        private final int threads;
+        private final int queueCapacity;
+        private final StageHandler<I, O> handler;
+        private final BlockingQueue<I> queue;   // null dla źródła
+        private final List<Thread> workers = new ArrayList<>();
+
+        private final LongAdder processed    = new LongAdder();
+        private final LongAdder failed       = new LongAdder();
+        private final LongAdder busyNanos    = new LongAdder();
+        private final LongAdder blockedNanos = new LongAdder();
+
+        private Stage<O, ?> next;
+        private volatile boolean finishing;
+
+        private Stage(String name, int threads, int queueCapacity, StageHandler<I, O> handler) {
+            if (threads <= 0) {
+                throw new IllegalArgumentException("Stage '" + name + "' needs at least one thread: " + threads);
+            }
+            this.name = name;
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+            this.handler = handler;
+            this.queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : null;
+        }
+
+        private void start() {
+            for (int i = 0; i < threads; i++) {
+                Thread t = new Thread(this::loop, "pipeline-" + name + "-" + i);
+                workers.add(t);
+                t.start();
+            }
+        }
+
+        private void loop() {
+            try {
+                while (true) {
+                    I input = null;
+                    if (queue == null) {
+                        if (finishing) {
+                            return;
+                        }
+                    } else {
+                        input = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                        if (input == null) {
+                            if (finishing) {
+                                return;
+                            }
+                            continue;
+                        }
+                    }
+                    O output = process(input);
+                    if (output != null && next != null) {
+                        long blockedFrom = System.nanoTime();
+                        next.queue.put(output);
+                        blockedNanos.add(System.nanoTime() - blockedFrom);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (!finishing) {
+                    log.warn("Pipeline stage '{}' interrupted.", name);
+                }
+            }
+        }
+
+        private O process(I input) throws InterruptedException {
+            long start = System.nanoTime();
+            try {
+                O output = handler.handle(input);
+                if (queue != null || output != null) {
+                    processed.increment();
+                }
+                return output;
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                if (finishing && queue == null) {
+                    // Przerwane źródło przy zatrzymaniu – to nie jest błąd przetwarzania.
+                    log.debug("Pipeline source '{}' stopped during fetch: {}", name, e.getMessage());
+                    return null;
+                }
+                failed.increment();
+                log.error("Pipeline stage '{}' failed: {}", name, e.getMessage(), e);
+                return null;
+            } finally {
+                busyNanos.add(System.nanoTime() - start);
+            }
+        }
+
+        private void finish() {
+            finishing = true;
+            if (queue == null) {
+                // Źródło może czekać na nową pracę (np. LISTEN) – nie ma czego opróżniać.
+                workers.forEach(Thread::interrupt);
+            }
+        }
+
+        private void join(long deadlineNanos) throws InterruptedException {
+            for (Thread t : workers) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+                t.join(Math.max(1, remainingMillis));
+                if (t.isAlive()) {
+                    log.warn("Pipeline stage '{}' did not drain in time, interrupting {}.", name, t.getName());
+                    t.interrupt();
+                    t.join(1000);
+                }
+            }
+            workers.clear();
+        }
+
+        private StageStats stats() {
+            return new StageStats(name, threads, queue == null ? 0 : queue.size(), queueCapacity,
+                    processed.sum(), failed.sum(), busyNanos.sum(), blockedNanos.sum());
+        }
+    }
+}
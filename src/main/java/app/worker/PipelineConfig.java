@@ -0,0 +1,34 @@
+package app.worker;
+
+import java.time.Duration;
+import java.util.Properties;
+
+import static app.config.ConfigProperties.*;
+
+/**
+ * Thread allocation and queue sizes of the {@link ExecutionMode#PIPELINE} mode
+ * ({@code worker.pipeline.*} keys). Queues hold claimed batches, not single orders.
+ */
+public record PipelineConfig(int fetchThreads,
+                             int computeThreads,
+                             int persistThreads,
+                             int publishThreads,
+                             int queueCapacity,
+                             Duration statsInterval) {
+
+    public static PipelineConfig defaults() {
+        return new PipelineConfig(1, 1, 2, 2, 4, Duration.ofSeconds(30));
+    }
+
+    public static PipelineConfig fromProperties(Properties props) {
+        PipelineConfig d = defaults();
+        return new PipelineConfig(
+                intProperty(props, "worker.pipeline.fetch.threads", d.fetchThreads()),
+                intProperty(props, "worker.pipeline.compute.threads", d.computeThreads()),
+                intProperty(props, "worker.pipeline.persist.threads", d.persistThreads()),
+                intProperty(props, "worker.pipeline.publish.threads", d.publishThreads()),
+                intProperty(props, "worker.pipeline.queue.capacity", d.queueCapacity()),
+                millisProperty(props, "worker.pipeline.stats.interval.ms", d.statsInterval())
+        );
+    }
+}
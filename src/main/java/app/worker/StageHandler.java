@@ -0,0 +1,11 @@
+package app.worker;
+
+/**
+ * Work done by one {@link Pipeline} stage for a single item.
+ * Returning {@code null} means there is nothing to hand over to the next stage.
+ * The source stage is invoked in a loop with a {@code null} input.
+ */
+@FunctionalInterface
+public interface StageHandler<I, O> {
+    O handle(I input) throws Exception;
+}
@@ -0,0 +1,28 @@
+package app.worker;
+
+/**
+ * Point-in-time counters of one {@link Pipeline} stage.
+ *
+ * @param queueDepth   items waiting in front of the stage (always 0 for the source)
+ * @param busyNanos    total time spent inside the stage handler; for the source this includes waiting for new work
+ * @param blockedNanos total time spent waiting for room in the next stage's queue (backpressure)
+ */
+public record StageStats(String name,
+                         int threads,
+                         int queueDepth,
+                         int queueCapacity,
+                         long processed,
+                         long failed,
+                         long busyNanos,
+                         long blockedNanos) {
+
+    public double avgBusyMillis() {
+        return processed == 0 ? 0.0 : busyNanos / 1_000_000.0 / processed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[threads=%d, queue=%d/%d, processed=%d, failed=%d, avg=%.2fms, blocked=%dms]",
+                name, threads, queueDepth, queueCapacity, processed, failed, avgBusyMillis(), blockedNanos / 1_000_000);
+    }
+}
@@ -0,0 +1,107 @@
+package app.worker;
+
+import app.model.Order;
+import app.model.ProcessedOrder;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * VAT 23% with HALF_UP rounding to cents. Thread-safe.
+ * The fixed-point path gives the same values and scales as the BigDecimal reference: for {@code c} cents
+ * (non-negative, as {@link Order} guarantees) {@code (c * 23 + 50) / 100} is exactly {@code c * 0.23} rounded
+ * half-up. Amounts with more than two decimals or more than {@value #MAX_INTEGER_DIGITS} integer digits fall back
+ * to BigDecimal. Apart from the result (two scale-2 BigDecimals and the ProcessedOrder) the fixed-point path does not
+ * allocate. {@link VatEngine#VERIFY} throws when the engines disagree; the worker logs such an order and leaves it
+ * out of its batch.
+ */
+public final class VatCalculator {
+
+    private static final BigDecimal VAT_RATE     = new BigDecimal("0.23");
+    private static final long       RATE_PERCENT = 23;
+    private static final int        SCALE        = 2;
+    /**
+     * Cyfry przed przecinkiem obsługiwane bez BigDecimal: {@code cents * 23} mieści się w long, a grosze odczytane
+     * przez double (patrz {@link #cents}) są dokładne. NUMERIC(8,2) w ORDERS ma ich 6.
+     */
+    static final int                MAX_INTEGER_DIGITS = 13;
+
+    private final VatEngine engine;
+    private final LongAdder fallbacks  = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+
+    public VatCalculator(VatEngine engine) {
+        this.engine = engine;
+    }
+
+    public ProcessedOrder apply(Order order) {
+        return switch (engine) {
+            case BIGDECIMAL -> bigDecimal(order);
+            case FIXED_POINT -> fixedPointOrFallback(order);
+            case VERIFY -> verified(order);
+        };
+    }
+
+    /** Orders the fixed-point path could not represent and computed with BigDecimal. */
+    public long fallbackCount() {
+        return fallbacks.sum();
+    }
+
+    /** {@link VatEngine#VERIFY} only: orders where the two engines gave different results (each one also threw). */
+    public long mismatchCount() {
+        return mismatches.sum();
+    }
+
+    private ProcessedOrder fixedPointOrFallback(Order order) {
+        ProcessedOrder fixed = fixedPoint(order);
+        if (fixed != null) {
+            return fixed;
+        }
+        fallbacks.increment();
+        return bigDecimal(order);
+    }
+
+    private ProcessedOrder verified(Order order) {
+        ProcessedOrder reference = bigDecimal(order);
+        ProcessedOrder candidate = fixedPoint(order);
+        if (candidate == null) {
+            fallbacks.increment();
+        } else if (!candidate.equals(reference)) {
+            mismatches.increment();
+            throw new IllegalStateException(String.format(
+                    "VAT engines disagree for order %s: BigDecimal %s / %s, fixed-point %s / %s", order.id(),
+                    reference.vatAmount(), reference.totalAmount(), candidate.vatAmount(), candidate.totalAmount()));
+        }
+        return reference;
+    }
+
+    static ProcessedOrder bigDecimal(Order order) {
+        BigDecimal vatAmount = order.amount().multiply(VAT_RATE).setScale(SCALE, RoundingMode.HALF_UP);
+        BigDecimal totalAmount = order.amount().add(vatAmount).setScale(SCALE, RoundingMode.HALF_UP);
+        return new ProcessedOrder(order.id(), order.amount(), order.currency(), vatAmount, totalAmount, order.createdAt());
+    }
+
+    /**
+     * @return the processed order, or {@code null} when the amount does not fit the fixed-point path
+     */
+    static ProcessedOrder fixedPoint(Order order) {
+        BigDecimal amount = order.amount();
+        // precision() jest liczone raz i cache'owane; unscaledValue() tworzyłoby BigInteger przy każdym wywołaniu.
+        if (amount.scale() > SCALE || amount.signum() < 0 || amount.precision() - amount.scale() > MAX_INTEGER_DIGITS) {
+            return null;
+        }
+        long cents = cents(amount);
+        long vatCents = (cents * RATE_PERCENT + 50) / 100;
+        return new ProcessedOrder(order.id(), amount, order.currency(),
+                BigDecimal.valueOf(vatCents, SCALE), BigDecimal.valueOf(cents + vatCents, SCALE), order.createdAt());
+    }
+
+    /**
+     * Amount in cents, without allocating: {@link BigDecimal#doubleValue()} of a value with at most 15 significant
+     * digits is the correctly rounded quotient of two exact doubles, so times 100 it is within 0.2 of the exact
+     * number of cents and {@link Math#round(double)} restores it. {@code movePointRight} would create a BigDecimal.
+     */
+    static long cents(BigDecimal amount) {
+        return Math.round(amount.doubleValue() * 100);
+    }
+}
@@ -0,0 +1,16 @@
+package app.worker;
+
+/**
+ * How {@link VatCalculator} computes VAT and totals.
+ */
+public enum VatEngine {
+
+    /** {@code BigDecimal.multiply(rate).setScale(2, HALF_UP)} – the reference. */
+    BIGDECIMAL,
+
+    /** Amounts as {@code long} cents with integer HALF_UP rounding; BigDecimal only for amounts it cannot represent. */
+    FIXED_POINT,
+
+    /** Both engines for every order, BigDecimal result used; a difference throws and fails the batch (for tests). */
+    VERIFY
+}
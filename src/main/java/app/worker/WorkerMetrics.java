@@ -0,0 +1,96 @@
+package app.worker;
+
+import app.metrics.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Latency of the {@link OrderWorker} stages: claim (fetching the next batch), update (the batched VAT UPDATE, with
+ * the outbox insert in OUTBOX mode), publish (per message, until the broker confirm when confirms are on) and the
+ * whole batch (SEQUENTIAL / VIRTUAL_THREADS only – in PIPELINE mode the stages overlap), plus the lag of published
+ * orders since their insert (DIRECT mode; for OUTBOX see {@link app.mq.OrderLagRecorder} on the consumer side).
+ * Registered over JMX as {@code app.worker:type=OrderWorker,name=<name>,stage=<stage>}, next to the adaptive batch
+ * size and wait times as {@code app.worker:type=OrderWorker,name=<name>,component=adaptive}.
+ */
+public final class WorkerMetrics {
+
+    public static final String DOMAIN = "app.worker";
+
+    private static final int WINDOW_SLOTS = 6;
+
+    private final LatencyHistogram claim;
+    private final LatencyHistogram update;
+    private final LatencyHistogram publish;
+    private final LatencyHistogram batch;
+    private final LatencyHistogram lag;
+    private final AdaptiveControllerMXBean adaptive;
+    private final List<ObjectName> registered = new ArrayList<>();
+
+    public WorkerMetrics(Duration window, AdaptiveControllerMXBean adaptive) {
+        this.adaptive = adaptive;
+        this.claim = new LatencyHistogram(window, WINDOW_SLOTS);
+        this.update = new LatencyHistogram(window, WINDOW_SLOTS);
+        this.publish = new LatencyHistogram(window, WINDOW_SLOTS);
+        this.batch = new LatencyHistogram(window, WINDOW_SLOTS);
+        this.lag = new LatencyHistogram(window, WINDOW_SLOTS);
+    }
+
+    public LatencyHistogram claim() {
+        return claim;
+    }
+
+    public LatencyHistogram update() {
+        return update;
+    }
+
+    public LatencyHistogram publish() {
+        return publish;
+    }
+
+    public LatencyHistogram batch() {
+        return batch;
+    }
+
+    /**
+     * Insert → publish (confirm) of each order, by the worker's wall clock against the database's.
+     */
+    public LatencyHistogram lag() {
+        return lag;
+    }
+
+    public synchronized void register(MBeanServer server, String name) throws JMException {
+        register(server, name, "claim", claim);
+        register(server, name, "update", update);
+        register(server, name, "publish", publish);
+        register(server, name, "batch", batch);
+        register(server, name, "lag", lag);
+        ObjectName objectName = new ObjectName(DOMAIN + ":type=OrderWorker,name=" + ObjectName.quote(name) + ",component=adaptive");
+        server.registerMBean(adaptive, objectName);
+        registered.add(objectName);
+    }
+
+    public synchronized void unregister(MBeanServer server) throws JMException {
+        for (ObjectName objectName : registered) {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        }
+        registered.clear();
+    }
+
+    private void register(MBeanServer server, String name, String stage, LatencyHistogram histogram) throws JMException {
+        ObjectName objectName = new ObjectName(DOMAIN + ":type=OrderWorker,name=" + ObjectName.quote(name) + ",stage=" + stage);
+        server.registerMBean(histogram, objectName);
+        registered.add(objectName);
+    }
+
+    @Override
+    public String toString() {
+        return "claim[" + claim + "], update[" + update + "], publish[" + publish + "], batch[" + batch + "], lag[" + lag + "]";
+    }
+}
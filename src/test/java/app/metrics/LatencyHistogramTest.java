@@ -0,0 +1,168 @@
+package app.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayName("LatencyHistogram")
+class LatencyHistogramTest {
+
+    private static final long MS = 1_000_000L;
+
+    /** 6 s okna w 6 slotach po 1 s; zegar startuje daleko od zera, jak System.nanoTime(). */
+    private final AtomicLong clock = new AtomicLong(1_000_000 * 1_000_000_000L);
+    private final LatencyHistogram histogram = new LatencyHistogram(Duration.ofSeconds(6), 6, clock::get);
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    @DisplayName("Do 63 µs każdy kubełek to dokładnie jedna wartość")
+    void shouldKeepSmallValuesExact() {
+        for (long micros = 0; micros < 64; micros++) {
+            assertThat(LatencyHistogram.bucketOf(micros)).isEqualTo((int) micros);
+            assertThat(LatencyHistogram.highestValueOf((int) micros)).isEqualTo(micros);
+        }
+    }
+
+    @Test
+    @DisplayName("Granice kubełków są ciągłe, rosnące i z błędem względnym najwyżej 1/32")
+    void shouldHaveContiguousBucketsWithinResolution() {
+        int previous = LatencyHistogram.bucketOf(63);
+        for (long micros = 64; micros < (1L << 36); micros += Math.max(1, micros >>> 7)) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            assertThat(bucket).isBetween(previous, previous + 1);
+            long highest = LatencyHistogram.highestValueOf(bucket);
+            long lowest = LatencyHistogram.highestValueOf(bucket - 1) + 1;
+            assertThat(micros).isBetween(lowest, highest);
+            assertThat((double) (highest - lowest + 1) / lowest).isLessThanOrEqualTo(1.0 / 32);
+            previous = bucket;
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {64, 127, 128, 129, 255, 256, 4095, 4096, 1_000_000})
+    @DisplayName("Wartość na granicy potęgi dwójki trafia do kubełka, który ją obejmuje")
+    void shouldPlaceBoundaryValues(long micros) {
+        int bucket = LatencyHistogram.bucketOf(micros);
+
+        assertThat(LatencyHistogram.highestValueOf(bucket)).isGreaterThanOrEqualTo(micros);
+        assertThat(LatencyHistogram.highestValueOf(bucket - 1)).isLessThan(micros);
+    }
+
+    @Test
+    @DisplayName("Wartości ujemne liczą się jako 0, zbyt duże jako maksimum zakresu")
+    void shouldClampOutOfRangeValues() {
+        histogram.record(-5 * MS);
+        histogram.record(Long.MAX_VALUE);
+
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.count()).isEqualTo(2);
+        assertThat(snapshot.p50Micros()).isZero();
+        assertThat(snapshot.maxMicros()).isEqualTo((1L << 36) - 1);
+    }
+
+    @Test
+    @DisplayName("Percentyle to górna granica kubełka, nie więcej niż maksimum")
+    void shouldComputePercentiles() {
+        for (int ms = 1; ms <= 1000; ms++) {
+            histogram.record(ms * MS);
+        }
+
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.count()).isEqualTo(1000);
+        assertThat(snapshot.meanMicros()).isEqualTo(500_500.0);
+        assertThat(snapshot.p50Micros()).isBetween(500_000L, 500_000L + 500_000L / 32);
+        assertThat(snapshot.p99Micros()).isBetween(990_000L, 990_000L + 990_000L / 32);
+        assertThat(snapshot.p999Micros()).isBetween(999_000L, 1_000_000L);
+        assertThat(snapshot.maxMicros()).isEqualTo(1_000_000L);
+    }
+
+    @Test
+    @DisplayName("Okno przesuwa się co slot – wpisy starsze niż okno znikają, suma od początku zostaje")
+    void shouldRotateWindow() {
+        histogram.record(100 * MS);
+        advance(Duration.ofSeconds(1));
+        histogram.record(200 * MS);
+        advance(Duration.ofSeconds(4));
+
+        // Oba wpisy wciąż w oknie (slot bieżący + 5 poprzednich).
+        assertThat(histogram.snapshot().count()).isEqualTo(2);
+        assertThat(histogram.snapshot().maxMicros()).isEqualTo(200_000);
+
+        advance(Duration.ofSeconds(1));
+        assertThat(histogram.snapshot().count()).isEqualTo(1);
+        assertThat(histogram.snapshot().maxMicros()).isEqualTo(200_000);
+
+        advance(Duration.ofSeconds(1));
+        LatencySnapshot empty = histogram.snapshot();
+        assertThat(empty.count()).isZero();
+        assertThat(empty.maxMicros()).isZero();
+        assertThat(empty.totalCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Slot użyty ponownie po pełnym obrocie jest najpierw czyszczony")
+    void shouldClearReusedSlot() {
+        histogram.record(500 * MS);
+        advance(Duration.ofSeconds(6));
+
+        histogram.record(1 * MS);
+
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.count()).isEqualTo(1);
+        assertThat(snapshot.maxMicros()).isEqualTo(1_000);
+        assertThat(snapshot.totalCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Przepustowość młodego histogramu liczona od utworzenia, potem od początku okna")
+    void shouldComputeThroughputOverCoveredTime() {
+        advance(Duration.ofSeconds(2));
+        for (int i = 0; i < 10; i++) {
+            histogram.record(MS);
+        }
+        assertThat(histogram.snapshot().windowSeconds()).isEqualTo(2.0);
+        assertThat(histogram.snapshot().throughputPerSecond()).isEqualTo(5.0);
+
+        advance(Duration.ofSeconds(10));
+        assertThat(histogram.snapshot().windowSeconds()).isEqualTo(6.0);
+    }
+
+    @Test
+    @DisplayName("JMX zwraca jedną migawkę – wszystkie wartości z tej samej chwili")
+    void shouldExposeSingleSnapshotOverJmx() throws Exception {
+        for (int ms = 1; ms <= 100; ms++) {
+            histogram.record(ms * MS);
+        }
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        ObjectName name = new ObjectName("app.metrics:type=Test");
+        server.registerMBean(histogram, name);
+
+        CompositeData snapshot = (CompositeData) server.getAttribute(name, "Snapshot");
+
+        LatencySnapshot expected = histogram.snapshot();
+        assertThat(snapshot.get("count")).isEqualTo(100L);
+        assertThat(snapshot.get("totalCount")).isEqualTo(100L);
+        assertThat(snapshot.get("maxMicros")).isEqualTo(100_000L);
+        assertThat(snapshot.get("p50Micros")).isEqualTo(expected.p50Micros());
+        assertThat(snapshot.get("windowSeconds")).isEqualTo(expected.windowSeconds());
+        assertThat(snapshot.get("throughputPerSecond")).isEqualTo(expected.throughputPerSecond());
+        assertThat(snapshot.getCompositeType().keySet()).hasSize(10);
+        assertThat(server.getMBeanInfo(name).getDescriptor().getFieldValue("mxbean")).isEqualTo("true");
+        assertThat(server.getMBeanInfo(name).getAttributes()).hasSize(1);
+    }
+}
@@ -0,0 +1,100 @@
+package app.mq;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.impl.LongStringHelper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("unit")
+@DisplayName("BatchEnvelope")
+class BatchEnvelopeTest {
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("pack/unpack zachowuje kolejność i treść, także pustych wiadomości")
+    void shouldRoundTrip() {
+        List<byte[]> messages = List.of(bytes("{\"id\":1}"), new byte[0], bytes("zażółć"), new byte[1000]);
+
+        byte[] body = BatchEnvelope.pack(messages);
+        List<byte[]> unpacked = BatchEnvelope.unpack(body);
+
+        assertThat(body).hasSize(Integer.BYTES + 4 * Integer.BYTES + 8 + 0 + bytes("zażółć").length + 1000);
+        assertThat(unpacked).hasSize(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            assertThat(unpacked.get(i)).isEqualTo(messages.get(i));
+        }
+        assertThat(BatchEnvelope.unpack(BatchEnvelope.pack(List.of()))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Odrzuca kopertę z liczbą wiadomości większą niż mieści treść")
+    void shouldRejectCorruptedCount() {
+        byte[] body = ByteBuffer.allocate(8).putInt(1_000_000).putInt(0).array();
+
+        assertThatThrownBy(() -> BatchEnvelope.unpack(body))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("message count: 1000000");
+        assertThatThrownBy(() -> BatchEnvelope.unpack(ByteBuffer.allocate(4).putInt(-1).array()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Odrzuca kopertę z długością wiadomości wychodzącą poza treść")
+    void shouldRejectCorruptedLength() {
+        byte[] body = BatchEnvelope.pack(List.of(bytes("abc"), bytes("defgh")));
+        byte[] truncated = Arrays.copyOf(body, body.length - 2);
+
+        assertThatThrownBy(() -> BatchEnvelope.unpack(truncated))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("message 1 length: 5");
+    }
+
+    @Test
+    @DisplayName("Rozpoznaje kopertę po nagłówku (także LongString od brokera), nieznany format to błąd")
+    void shouldDetectBatchByHeader() {
+        AMQP.BasicProperties envelope = BatchEnvelope.properties(3, "application/json");
+        AMQP.BasicProperties fromBroker = new AMQP.BasicProperties.Builder()
+                .headers(Map.of(BatchEnvelope.FORMAT_HEADER, LongStringHelper.asLongString(BatchEnvelope.FORMAT)))
+                .build();
+        AMQP.BasicProperties unknown = new AMQP.BasicProperties.Builder()
+                .headers(Map.of(BatchEnvelope.FORMAT_HEADER, "length-prefixed-v2"))
+                .build();
+
+        assertThat(BatchEnvelope.isBatch(envelope)).isTrue();
+        assertThat(envelope.getContentType()).isEqualTo("application/json");
+        assertThat(envelope.getHeaders()).containsEntry(BatchEnvelope.SIZE_HEADER, 3);
+        assertThat(BatchEnvelope.isBatch(fromBroker)).isTrue();
+        assertThat(BatchEnvelope.isBatch(null)).isFalse();
+        assertThat(BatchEnvelope.isBatch(new AMQP.BasicProperties())).isFalse();
+        assertThatThrownBy(() -> BatchEnvelope.isBatch(unknown))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("length-prefixed-v2");
+    }
+
+    @Test
+    @DisplayName("Wiadomość z koperty dostaje jej właściwości bez nagłówków partii")
+    void shouldStripBatchHeadersFromMessageProperties() {
+        AMQP.BasicProperties envelope = MessageTimestamps.stamp(BatchEnvelope.properties(2, "text/plain"), null, 1234L);
+
+        AMQP.BasicProperties message = BatchEnvelope.messageProperties(envelope);
+
+        assertThat(message.getContentType()).isEqualTo("text/plain");
+        assertThat(message.getHeaders())
+                .doesNotContainKeys(BatchEnvelope.FORMAT_HEADER, BatchEnvelope.SIZE_HEADER)
+                .containsEntry(MessageTimestamps.PUBLISHED_AT_HEADER, 1234L);
+        assertThat(BatchEnvelope.messageProperties(BatchEnvelope.properties(1, null)).getHeaders()).isNull();
+    }
+}
@@ -0,0 +1,167 @@
+package app.mq;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.ConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("unit")
+@DisplayName("BatchingPublisher")
+class BatchingPublisherTest {
+
+    private static final Duration LONG_LINGER = Duration.ofHours(1);
+
+    private record Published(String routingKey, AMQP.BasicProperties properties, byte[] body) {
+    }
+
+    /** Klient bez brokera – zapisuje koperty; publishConfirmed zwraca future sterowany przez test. */
+    private static final class RecordingClient extends RabbitMqClient {
+        final BlockingQueue<Published> published = new LinkedBlockingQueue<>();
+        final List<CompletableFuture<Void>> confirms = new ArrayList<>();
+        volatile IOException failure;
+
+        RecordingClient() {
+            super(new ConnectionFactory());
+        }
+
+        @Override
+        public void publishMessage(String exchange, String routingKey, AMQP.BasicProperties props, byte[] body)
+                throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+            published.add(new Published(routingKey, props, body));
+        }
+
+        @Override
+        public synchronized CompletableFuture<Void> publishConfirmed(String exchange, String routingKey,
+                                                                     AMQP.BasicProperties props, byte[] body) {
+            published.add(new Published(routingKey, props, body));
+            CompletableFuture<Void> confirm = new CompletableFuture<>();
+            confirms.add(confirm);
+            return confirm;
+        }
+    }
+
+    private final RecordingClient client = new RecordingClient();
+    private BatchingPublisher publisher;
+
+    @AfterEach
+    void closePublisher() {
+        if (publisher != null) {
+            publisher.close();
+        }
+    }
+
+    private static byte[] message(int i) {
+        return new byte[]{(byte) i};
+    }
+
+    @Test
+    @DisplayName("Pełna partia wychodzi od razu jedną kopertą, bez czekania na linger")
+    void shouldFlushWhenBatchIsFull() throws Exception {
+        publisher = new BatchingPublisher(client, "", "orders", 3, LONG_LINGER, false, "application/json");
+
+        CompletableFuture<Void> first = publisher.add(message(1));
+        publisher.add(message(2));
+        assertThat(client.published).isEmpty();
+        assertThat(first).isNotDone();
+        CompletableFuture<Void> third = publisher.add(message(3));
+
+        assertThat(client.published).hasSize(1);
+        Published envelope = client.published.poll();
+        assertThat(envelope.routingKey()).isEqualTo("orders");
+        assertThat(BatchEnvelope.isBatch(envelope.properties())).isTrue();
+        assertThat(envelope.properties().getContentType()).isEqualTo("application/json");
+        assertThat(envelope.properties().getHeaders()).containsEntry(BatchEnvelope.SIZE_HEADER, 3);
+        assertThat(BatchEnvelope.unpack(envelope.body())).containsExactly(message(1), message(2), message(3));
+        assertThat(first).isCompleted();
+        assertThat(third).isCompleted();
+
+        CompletableFuture<Void> next = publisher.add(message(4));
+        assertThat(next).as("nowa partia ma własny future").isNotSameAs(first).isNotDone();
+    }
+
+    @Test
+    @DisplayName("Niepełna partia wychodzi po linger od pierwszej wiadomości")
+    void shouldFlushAfterLinger() throws Exception {
+        publisher = new BatchingPublisher(client, "", "orders", 100, Duration.ofMillis(100), false, null);
+
+        long started = System.nanoTime();
+        CompletableFuture<Void> sent = publisher.add(message(1));
+        publisher.add(message(2));
+
+        Published envelope = client.published.poll(5, TimeUnit.SECONDS);
+        assertThat(envelope).isNotNull();
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofMillis(90));
+        assertThat(BatchEnvelope.unpack(envelope.body())).containsExactly(message(1), message(2));
+        sent.get(1, TimeUnit.SECONDS);
+        assertThat(client.published.poll(300, TimeUnit.MILLISECONDS)).as("jedna koperta na partię").isNull();
+    }
+
+    @Test
+    @DisplayName("Timer partii, która wyszła jako pełna, nie wysyła kolejnej przedwcześnie")
+    void shouldIgnoreLingerOfAlreadySentBatch() throws Exception {
+        publisher = new BatchingPublisher(client, "", "orders", 2, Duration.ofMillis(200), false, null);
+
+        publisher.add(message(1));
+        publisher.add(message(2));
+        assertThat(client.published).hasSize(1);
+        client.published.clear();
+        Thread.sleep(100);
+        long secondStarted = System.nanoTime();
+        publisher.add(message(3));
+
+        Published envelope = client.published.poll(5, TimeUnit.SECONDS);
+        assertThat(Duration.ofNanos(System.nanoTime() - secondStarted))
+                .as("druga partia czeka swój własny linger").isGreaterThanOrEqualTo(Duration.ofMillis(190));
+        assertThat(BatchEnvelope.unpack(envelope.body())).containsExactly(message(3));
+    }
+
+    @Test
+    @DisplayName("Z potwierdzeniami future kończy się dopiero po ack, a nack go psuje")
+    void shouldCompleteOnBrokerConfirm() {
+        publisher = new BatchingPublisher(client, "", "orders", 2, LONG_LINGER, true, null);
+
+        CompletableFuture<Void> acked = publisher.add(message(1));
+        publisher.add(message(2));
+        CompletableFuture<Void> nacked = publisher.add(message(3));
+        publisher.flush();
+
+        assertThat(client.confirms).hasSize(2);
+        assertThat(acked).isNotDone();
+        client.confirms.get(0).complete(null);
+        client.confirms.get(1).completeExceptionally(new IOException("nack"));
+        assertThat(acked).isCompleted();
+        assertThatThrownBy(nacked::get).isInstanceOf(ExecutionException.class).hasRootCauseMessage("nack");
+    }
+
+    @Test
+    @DisplayName("Błąd publikacji psuje future wszystkich wiadomości partii, close() wysyła resztę")
+    void shouldFailBatchOnPublishErrorAndFlushOnClose() {
+        publisher = new BatchingPublisher(client, "", "orders", 10, LONG_LINGER, false, null);
+        CompletableFuture<Void> pending = publisher.add(message(1));
+        client.failure = new IOException("channel closed");
+
+        publisher.close();
+        publisher = null;
+
+        assertThat(pending).isCompletedExceptionally();
+        assertThatThrownBy(pending::get).hasRootCauseMessage("channel closed");
+    }
+}
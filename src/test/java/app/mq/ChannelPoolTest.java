@@ -0,0 +1,165 @@
+package app.mq;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("unit")
+@DisplayName("ChannelPool")
+class ChannelPoolTest {
+
+    /** Połączenie bez brokera; kanały i samo połączenie można „zabić” przełączając flagę open. */
+    private static final class FakeConnection {
+        final String name;
+        final AtomicBoolean open = new AtomicBoolean(true);
+        final List<AtomicBoolean> channels = new CopyOnWriteArrayList<>();
+        volatile IOException createFailure;
+
+        FakeConnection(String name) {
+            this.name = name;
+        }
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (p, method, args) -> switch (method.getName()) {
+                        case "createChannel" -> {
+                            if (createFailure != null) {
+                                throw createFailure;
+                            }
+                            AtomicBoolean channelOpen = new AtomicBoolean(true);
+                            channels.add(channelOpen);
+                            yield channel(channelOpen);
+                        }
+                        case "isOpen" -> open.get();
+                        case "close" -> {
+                            open.set(false);
+                            yield null;
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        private static Channel channel(AtomicBoolean open) {
+            return (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[]{Channel.class},
+                    (p, method, args) -> switch (method.getName()) {
+                        case "isOpen" -> open.get();
+                        case "hashCode" -> System.identityHashCode(p);
+                        case "equals" -> p == args[0];
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+    }
+
+    private static final class FakeConnectionFactory extends ConnectionFactory {
+        final List<FakeConnection> created = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Connection newConnection(String clientProvidedName) {
+            FakeConnection connection = new FakeConnection(clientProvidedName);
+            created.add(connection);
+            return connection.proxy();
+        }
+    }
+
+    private final FakeConnectionFactory factory = new FakeConnectionFactory();
+    private ChannelPool pool;
+
+    @AfterEach
+    void closePool() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private ChannelPool open(int connections, int channels) throws Exception {
+        pool = new ChannelPool(factory, new ChannelPoolConfig(connections, channels, Duration.ofMillis(200), 100));
+        pool.open();
+        return pool;
+    }
+
+    @Test
+    @DisplayName("Otwiera kanały po kolei na kolejnych połączeniach")
+    void shouldSpreadChannelsOverConnections() throws Exception {
+        open(2, 5);
+
+        assertThat(factory.created).extracting(c -> c.name).containsExactly("publisher-0", "publisher-1");
+        assertThat(factory.created.get(0).channels).hasSize(3);
+        assertThat(factory.created.get(1).channels).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Zamknięty kanał wymienia przy wypożyczeniu na nowy z tego samego połączenia")
+    void shouldReplaceClosedChannelOnBorrow() throws Exception {
+        open(1, 1);
+        FakeConnection connection = factory.created.get(0);
+        ChannelPool.PooledChannel first = pool.borrow();
+        connection.channels.get(0).set(false);
+        pool.release(first);
+
+        ChannelPool.PooledChannel replaced = pool.borrow();
+
+        assertThat(replaced).isNotSameAs(first);
+        assertThat(replaced.channel().isOpen()).isTrue();
+        assertThat(connection.channels).hasSize(2);
+        assertThat(factory.created).as("żywe połączenie zostaje").hasSize(1);
+        pool.release(replaced);
+        assertThat(pool.borrow()).as("w puli jest już tylko nowy kanał").isSameAs(replaced);
+    }
+
+    @Test
+    @DisplayName("Gdy padło też połączenie, otwiera je na nowo pod tą samą nazwą")
+    void shouldReopenClosedConnection() throws Exception {
+        open(1, 1);
+        FakeConnection dead = factory.created.get(0);
+        dead.open.set(false);
+        dead.channels.get(0).set(false);
+
+        ChannelPool.PooledChannel replaced = pool.borrow();
+
+        assertThat(factory.created).hasSize(2);
+        assertThat(factory.created.get(1).name).isEqualTo("publisher-0");
+        assertThat(factory.created.get(1).channels).hasSize(1);
+        assertThat(dead.channels).hasSize(1);
+        assertThat(replaced.channel().isOpen()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Nieudana wymiana oddaje slot do puli – następne wypożyczenie próbuje ponownie")
+    void shouldReturnSlotWhenReplacementFails() throws Exception {
+        open(1, 1);
+        FakeConnection connection = factory.created.get(0);
+        connection.channels.get(0).set(false);
+        connection.createFailure = new IOException("channel_max reached");
+
+        assertThatThrownBy(() -> pool.borrow()).isInstanceOf(IOException.class).hasMessage("channel_max reached");
+
+        connection.createFailure = null;
+        ChannelPool.PooledChannel replaced = pool.borrow();
+        assertThat(replaced.channel().isOpen()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Gdy wszystkie kanały są wypożyczone, borrow kończy się błędem po borrowTimeout")
+    void shouldTimeOutWhenExhausted() throws Exception {
+        open(1, 1);
+        pool.borrow();
+
+        assertThatThrownBy(() -> pool.borrow())
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("No publisher channel available within PT0.2S");
+    }
+}
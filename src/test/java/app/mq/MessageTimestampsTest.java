@@ -0,0 +1,76 @@
+package app.mq;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.impl.LongStringHelper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayName("MessageTimestamps")
+class MessageTimestampsTest {
+
+    private static final Instant CREATED = Instant.parse("2024-03-01T10:15:30.123Z");
+    private static final long PUBLISHED = CREATED.toEpochMilli() + 250;
+
+    @Test
+    @DisplayName("stamp ustawia oba nagłówki w ms i timestamp AMQP, zachowując resztę właściwości")
+    void shouldStampHeadersAndTimestamp() {
+        AMQP.BasicProperties base = new AMQP.BasicProperties.Builder()
+                .contentType("application/json")
+                .headers(Map.of("x-trace", "abc"))
+                .build();
+
+        AMQP.BasicProperties stamped = MessageTimestamps.stamp(base, CREATED, PUBLISHED);
+
+        assertThat(stamped.getContentType()).isEqualTo("application/json");
+        assertThat(stamped.getTimestamp()).isEqualTo(new Date(PUBLISHED));
+        assertThat(stamped.getHeaders())
+                .containsEntry("x-trace", "abc")
+                .containsEntry(MessageTimestamps.CREATED_AT_HEADER, CREATED.toEpochMilli())
+                .containsEntry(MessageTimestamps.PUBLISHED_AT_HEADER, PUBLISHED);
+        assertThat(base.getHeaders()).as("base nie jest modyfikowane").containsOnlyKeys("x-trace");
+        assertThat(MessageTimestamps.createdAtMillis(stamped)).isEqualTo(CREATED.toEpochMilli());
+        assertThat(MessageTimestamps.publishedAtMillis(stamped)).isEqualTo(PUBLISHED);
+    }
+
+    @Test
+    @DisplayName("Bez createdAt i bez bazowych właściwości – tylko czas publikacji")
+    void shouldStampWithoutCreatedAt() {
+        AMQP.BasicProperties stamped = MessageTimestamps.stamp(null, null, PUBLISHED);
+
+        assertThat(stamped.getHeaders()).containsOnlyKeys(MessageTimestamps.PUBLISHED_AT_HEADER);
+        assertThat(MessageTimestamps.createdAtMillis(stamped)).isEqualTo(-1);
+        assertThat(MessageTimestamps.publishedAtMillis(stamped)).isEqualTo(PUBLISHED);
+    }
+
+    @Test
+    @DisplayName("Bez nagłówka czas publikacji bierze z timestampu AMQP, bez niczego zwraca -1")
+    void shouldFallBackToAmqpTimestamp() {
+        AMQP.BasicProperties onlyTimestamp = new AMQP.BasicProperties.Builder().timestamp(new Date(1_700_000_000_000L)).build();
+
+        assertThat(MessageTimestamps.publishedAtMillis(onlyTimestamp)).isEqualTo(1_700_000_000_000L);
+        assertThat(MessageTimestamps.publishedAtMillis(new AMQP.BasicProperties())).isEqualTo(-1);
+        assertThat(MessageTimestamps.publishedAtMillis(null)).isEqualTo(-1);
+        assertThat(MessageTimestamps.createdAtMillis(null)).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("Nagłówek od brokera jako Integer działa, nieliczbowy jest ignorowany")
+    void shouldReadNumericHeadersOnly() {
+        AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder()
+                .headers(Map.of(
+                        MessageTimestamps.CREATED_AT_HEADER, 42,
+                        MessageTimestamps.PUBLISHED_AT_HEADER, LongStringHelper.asLongString("1700000000000")))
+                .build();
+
+        assertThat(MessageTimestamps.createdAtMillis(properties)).isEqualTo(42);
+        assertThat(MessageTimestamps.publishedAtMillis(properties)).isEqualTo(-1);
+    }
+}
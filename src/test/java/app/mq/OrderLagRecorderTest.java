@@ -0,0 +1,91 @@
+package app.mq;
+
+import app.metrics.LatencySnapshot;
+import com.rabbitmq.client.AMQP;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@Tag("unit")
+@DisplayName("OrderLagRecorder")
+class OrderLagRecorderTest {
+
+    private final OrderLagRecorder recorder = new OrderLagRecorder(Duration.ofMinutes(1));
+
+    @Test
+    @DisplayName("Liczy insert → publish z nagłówków i publish → consume względem zegara konsumenta")
+    void shouldRecordBothLags() {
+        long published = System.currentTimeMillis() - 2_000;
+        AMQP.BasicProperties properties = MessageTimestamps.stamp(null, Instant.ofEpochMilli(published - 500), published);
+
+        recorder.record(properties);
+
+        LatencySnapshot insertToPublish = recorder.insertToPublish().snapshot();
+        LatencySnapshot publishToConsume = recorder.publishToConsume().snapshot();
+        assertThat(insertToPublish.count()).isEqualTo(1);
+        assertThat(insertToPublish.meanMicros()).isCloseTo(500_000, within(25_000.0));
+        assertThat(publishToConsume.count()).isEqualTo(1);
+        assertThat(publishToConsume.meanMicros()).isBetween(1_900_000.0, 3_000_000.0);
+    }
+
+    @Test
+    @DisplayName("Bez czasu publikacji nic nie zapisuje, bez createdAt tylko publish → consume")
+    void shouldSkipMissingTimestamps() {
+        recorder.record(new AMQP.BasicProperties());
+        recorder.record(null);
+        assertThat(recorder.publishToConsume().snapshot().count()).isZero();
+
+        recorder.record(MessageTimestamps.stamp(null, null, System.currentTimeMillis()));
+
+        assertThat(recorder.publishToConsume().snapshot().count()).isEqualTo(1);
+        assertThat(recorder.insertToPublish().snapshot().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Ujemny lag (rozjechane zegary) liczy jako 0")
+    void shouldClampNegativeLagToZero() {
+        long future = System.currentTimeMillis() + 60_000;
+
+        recorder.record(MessageTimestamps.stamp(null, Instant.ofEpochMilli(future + 1_000), future));
+
+        assertThat(recorder.publishToConsume().snapshot().maxMicros()).isZero();
+        assertThat(recorder.insertToPublish().snapshot().maxMicros()).isZero();
+    }
+
+    @Test
+    @DisplayName("wrap zapisuje lag i przekazuje wiadomość dalej")
+    void shouldWrapHandler() throws Exception {
+        List<byte[]> handled = new ArrayList<>();
+        MessageHandler handler = recorder.wrap((body, properties) -> handled.add(body));
+
+        handler.onMessage(new byte[]{1}, MessageTimestamps.stamp(null, null, System.currentTimeMillis()));
+
+        assertThat(handled).hasSize(1);
+        assertThat(recorder.publishToConsume().snapshot().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Rejestruje oba histogramy w JMX i je wyrejestrowuje")
+    void shouldRegisterInJmx() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+
+        recorder.register(server, "orders");
+
+        assertThat(server.queryNames(new ObjectName("app.mq:type=OrderLag,*"), null))
+                .extracting(n -> n.getKeyProperty("path"))
+                .containsExactlyInAnyOrder("insertToPublish", "publishToConsume");
+        recorder.unregister(server);
+        assertThat(server.queryNames(new ObjectName("app.mq:type=OrderLag,*"), null)).isEmpty();
+    }
+}
@@ -0,0 +1,101 @@
+package app.mq;
+
+import app.model.ProcessedOrder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("unit")
+@DisplayName("ProcessedOrderBinaryCodec")
+class ProcessedOrderBinaryCodecTest {
+
+    private static final UUID ID = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+
+    @ParameterizedTest(name = "{0} / {1} / {2}")
+    @CsvSource({
+            "100.00, 23.00, 123.00",
+            "0.00, 0.00, 0.00",
+            "0.01, 0.00, 0.01",
+            "999999.99, 230000.00, 1229999.99",
+            "5, 1.15, 6.15",
+            "1E+2, 23, 123"
+    })
+    @DisplayName("Round trip zachowuje wartości kwot i UUID")
+    void shouldRoundTrip(String original, String vat, String total) {
+        ProcessedOrder order = new ProcessedOrder(ID, new BigDecimal(original), "PLN", new BigDecimal(vat), new BigDecimal(total));
+
+        byte[] body = ProcessedOrderBinaryCodec.encode(order);
+        ProcessedOrder decoded = ProcessedOrderBinaryCodec.decode(body);
+
+        assertThat(body).hasSize(ProcessedOrderBinaryCodec.SIZE);
+        assertThat(body[0]).isEqualTo(ProcessedOrderBinaryCodec.VERSION);
+        assertThat(decoded.id()).isEqualTo(ID);
+        assertThat(decoded.currency()).isEqualTo("PLN");
+        assertThat(decoded.originalAmount()).isEqualByComparingTo(order.originalAmount());
+        assertThat(decoded.vatAmount()).isEqualByComparingTo(order.vatAmount());
+        assertThat(decoded.totalAmount()).isEqualByComparingTo(order.totalAmount());
+    }
+
+    @Test
+    @DisplayName("Kwoty dostają wspólną, największą skalę")
+    void shouldUseCommonScale() {
+        ProcessedOrder order = new ProcessedOrder(ID, new BigDecimal("5"), "EUR", new BigDecimal("1.150"), new BigDecimal("6.15"));
+
+        ProcessedOrder decoded = ProcessedOrderBinaryCodec.decode(ProcessedOrderBinaryCodec.encode(order));
+
+        assertThat(decoded.originalAmount()).isEqualTo(new BigDecimal("5.000"));
+        assertThat(decoded.vatAmount()).isEqualTo(new BigDecimal("1.150"));
+        assertThat(decoded.totalAmount()).isEqualTo(new BigDecimal("6.150"));
+    }
+
+    @Test
+    @DisplayName("Odrzuca nieznaną wersję i pustą wiadomość")
+    void shouldRejectUnknownVersion() {
+        byte[] body = ProcessedOrderBinaryCodec.encode(
+                new ProcessedOrder(ID, BigDecimal.TEN, "PLN", new BigDecimal("2.30"), new BigDecimal("12.30")));
+        body[0] = 2;
+
+        assertThatThrownBy(() -> ProcessedOrderBinaryCodec.decode(body))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("version: 2");
+        assertThatThrownBy(() -> ProcessedOrderBinaryCodec.decode(new byte[0]))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("<empty>");
+    }
+
+    @ParameterizedTest(name = "{0} bajtów")
+    @ValueSource(ints = {1, 44, 46, 90})
+    @DisplayName("Odrzuca wiadomość o złej długości")
+    void shouldRejectWrongLength(int length) {
+        byte[] valid = ProcessedOrderBinaryCodec.encode(
+                new ProcessedOrder(ID, BigDecimal.TEN, "PLN", new BigDecimal("2.30"), new BigDecimal("12.30")));
+        byte[] body = Arrays.copyOf(valid, length);
+
+        assertThatThrownBy(() -> ProcessedOrderBinaryCodec.decode(body))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("must have " + ProcessedOrderBinaryCodec.SIZE + " bytes, got " + length);
+    }
+
+    @Test
+    @DisplayName("Odrzuca walutę spoza ASCII i kwotę, która nie mieści się w long")
+    void shouldRejectUnencodableOrders() {
+        assertThatThrownBy(() -> ProcessedOrderBinaryCodec.encode(
+                new ProcessedOrder(ID, BigDecimal.ONE, "ZŁT", BigDecimal.ZERO, BigDecimal.ONE)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("ASCII");
+        assertThatThrownBy(() -> ProcessedOrderBinaryCodec.encode(
+                new ProcessedOrder(ID, new BigDecimal("1E+30"), "PLN", BigDecimal.ZERO, BigDecimal.ONE)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("does not fit");
+    }
+}
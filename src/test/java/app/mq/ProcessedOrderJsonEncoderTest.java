@@ -0,0 +1,120 @@
+package app.mq;
+
+import app.model.ProcessedOrder;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayName("ProcessedOrderJsonEncoder")
+class ProcessedOrderJsonEncoderTest {
+
+    private final ProcessedOrderJsonEncoder encoder = new ProcessedOrderJsonEncoder();
+    private final Gson gson = new Gson();
+
+    /** Poprzednia implementacja OrderWorker.buildRabbitMqMessage – wzorzec zgodności bajt w bajt. */
+    private static byte[] legacyEncode(ProcessedOrder order) {
+        return String.format(
+                "{\"id\":\"%s\",\"originalAmount\":%s,\"currency\":\"%s\",\"vatAmount\":%s,\"totalAmount\":%s}",
+                order.id(),
+                order.originalAmount().toPlainString(),
+                order.currency(),
+                order.vatAmount().toPlainString(),
+                order.totalAmount().toPlainString()
+        ).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @ParameterizedTest(name = "{0} / {1} / {2}")
+    @CsvSource({
+            "0, 0, 0",
+            "0.00, 0.00, 0.00",
+            "100.00, 23.00, 123.00",
+            "100.10, 23.02, 123.12",
+            "-1.50, -0.35, -1.85",
+            "-0.01, 0.00, -0.01",
+            "0.005, 0.00115, 0.00615",
+            "0.0001234, 0.000028382, 0.000151782",
+            "1E+3, 2.3E+2, 1.23E+3",
+            "-5E+2, 0E+2, -5E+2",
+            "999999.99, 229999.9977, 1229999.9877",
+            "922337203685477580.7, 0.1, 922337203685477580.8",
+            "123456789012345678901234.5678, -99999999999999999999.99, 1E+30"
+    })
+    @DisplayName("Zapisuje kwoty identycznie jak String.format z toPlainString()")
+    void shouldMatchLegacyEncoding(String original, String vat, String total) {
+        ProcessedOrder order = new ProcessedOrder(UUID.randomUUID(), new BigDecimal(original), "PLN",
+                new BigDecimal(vat), new BigDecimal(total));
+
+        assertEncodedLikeLegacy(order);
+    }
+
+    @Test
+    @DisplayName("Waluta spoza ASCII i skrajne UUID")
+    void shouldMatchLegacyEncodingForNonAsciiAndUuidEdges() {
+        assertEncodedLikeLegacy(new ProcessedOrder(new UUID(0, 0), BigDecimal.ONE, "ZŁ€",
+                BigDecimal.ZERO, BigDecimal.ONE));
+        assertEncodedLikeLegacy(new ProcessedOrder(new UUID(-1, -1), BigDecimal.TEN, "EUR",
+                BigDecimal.ZERO, BigDecimal.TEN));
+    }
+
+    @Test
+    @DisplayName("Losowe zamówienia (stałe ziarno) – zgodność bajt w bajt")
+    void shouldMatchLegacyEncodingForRandomOrders() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            assertEncodedLikeLegacy(new ProcessedOrder(new UUID(random.nextLong(), random.nextLong()),
+                    randomAmount(random), random.nextBoolean() ? "PLN" : "EUR",
+                    randomAmount(random), randomAmount(random)));
+        }
+    }
+
+    @Test
+    @DisplayName("Bufor enkodera jest wielokrotnego użytku – dłuższa wiadomość nie zostawia śmieci w krótszej")
+    void shouldReuseBufferBetweenMessages() {
+        ProcessedOrder longOrder = new ProcessedOrder(UUID.randomUUID(),
+                new BigDecimal("1" + "0".repeat(200) + ".5"), "PLN", BigDecimal.ONE, BigDecimal.ONE);
+        ProcessedOrder shortOrder = new ProcessedOrder(UUID.randomUUID(), BigDecimal.ONE, "PLN",
+                BigDecimal.ZERO, BigDecimal.ONE);
+
+        assertEncodedLikeLegacy(longOrder);
+        assertEncodedLikeLegacy(shortOrder);
+    }
+
+    private void assertEncodedLikeLegacy(ProcessedOrder order) {
+        byte[] encoded = encoder.encode(order);
+
+        assertThat(new String(encoded, StandardCharsets.UTF_8))
+                .isEqualTo(new String(legacyEncode(order), StandardCharsets.UTF_8));
+        assertThat(encoded).isEqualTo(legacyEncode(order));
+
+        // Tak czytają wiadomość kroki testowe (RabbitMqSteps) – te same wartości i skale.
+        JsonObject json = gson.fromJson(new String(encoded, StandardCharsets.UTF_8), JsonObject.class);
+        assertThat(json.get("id").getAsString()).isEqualTo(order.id().toString());
+        assertThat(json.get("currency").getAsString()).isEqualTo(order.currency());
+        assertThat(json.get("originalAmount").getAsBigDecimal()).isEqualByComparingTo(order.originalAmount());
+        assertThat(json.get("vatAmount").getAsBigDecimal()).isEqualByComparingTo(order.vatAmount());
+        assertThat(json.get("totalAmount").getAsBigDecimal()).isEqualByComparingTo(order.totalAmount());
+    }
+
+    /** Kwoty o różnych skalach (także ujemnych), znakach i długościach, w tym powyżej zakresu long. */
+    private static BigDecimal randomAmount(Random random) {
+        int bits = random.nextInt(100);
+        BigInteger unscaled = new BigInteger(bits, random);
+        if (random.nextBoolean()) {
+            unscaled = unscaled.negate();
+        }
+        return new BigDecimal(unscaled, random.nextInt(30) - 5);
+    }
+}
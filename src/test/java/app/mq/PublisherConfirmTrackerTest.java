@@ -0,0 +1,162 @@
+package app.mq;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("unit")
+@DisplayName("PublisherConfirmTracker")
+class PublisherConfirmTrackerTest {
+
+    /** Kanał w trybie confirm bez brokera: numeruje publikacje od 1 i pamięta listener zamknięcia. */
+    private static final class FakeChannel {
+        long nextSeqNo = 1;
+        int published;
+        boolean confirmSelected;
+        ShutdownListener shutdownListener;
+        IOException publishFailure;
+
+        Channel proxy() {
+            return (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[]{Channel.class},
+                    (p, method, args) -> switch (method.getName()) {
+                        case "confirmSelect" -> {
+                            confirmSelected = true;
+                            yield null;
+                        }
+                        case "addConfirmListener" -> null;
+                        case "addShutdownListener" -> {
+                            shutdownListener = (ShutdownListener) args[0];
+                            yield null;
+                        }
+                        case "getNextPublishSeqNo" -> nextSeqNo;
+                        case "basicPublish" -> {
+                            if (publishFailure != null) {
+                                throw publishFailure;
+                            }
+                            nextSeqNo++;
+                            published++;
+                            yield null;
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+    }
+
+    private final FakeChannel channel = new FakeChannel();
+
+    private List<CompletableFuture<Void>> publish(PublisherConfirmTracker tracker, int count) throws Exception {
+        List<CompletableFuture<Void>> confirms = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            confirms.add(tracker.publish("", "orders", null, new byte[]{(byte) i}));
+        }
+        return confirms;
+    }
+
+    @Test
+    @DisplayName("Ack z multiple=true potwierdza całą głowę mapy, pojedynczy ack tylko swój tag")
+    void shouldSettleHeadOnMultipleAck() throws Exception {
+        PublisherConfirmTracker tracker = new PublisherConfirmTracker(channel.proxy(), 10);
+        assertThat(channel.confirmSelected).isTrue();
+        List<CompletableFuture<Void>> confirms = publish(tracker, 5);
+
+        tracker.handleAck(3, true);
+
+        assertThat(confirms.subList(0, 3)).allSatisfy(c -> assertThat(c).isCompleted());
+        assertThat(confirms.subList(3, 5)).allSatisfy(c -> assertThat(c).isNotDone());
+        assertThat(tracker.outstandingCount()).isEqualTo(2);
+
+        tracker.handleAck(5, false);
+        assertThat(confirms.get(4)).isCompleted();
+        assertThat(confirms.get(3)).isNotDone();
+        tracker.handleAck(5, false);
+        assertThat(tracker.outstandingCount()).as("powtórny ack niczego nie psuje").isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Nack kończy future wyjątkiem, także dla multiple")
+    void shouldFailOnNack() throws Exception {
+        PublisherConfirmTracker tracker = new PublisherConfirmTracker(channel.proxy(), 10);
+        List<CompletableFuture<Void>> confirms = publish(tracker, 4);
+
+        tracker.handleNack(2, true);
+        tracker.handleNack(4, false);
+        tracker.handleAck(3, false);
+
+        assertThat(confirms.get(0)).isCompletedExceptionally();
+        assertThat(confirms.get(1)).isCompletedExceptionally();
+        assertThat(confirms.get(2)).isCompleted();
+        assertThatThrownBy(() -> confirms.get(3).get())
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("Broker nacked message with delivery tag 4");
+        assertThat(tracker.outstandingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Zamknięcie kanału kończy wyjątkiem wszystkie niepotwierdzone")
+    void shouldFailAllOnShutdown() throws Exception {
+        PublisherConfirmTracker tracker = new PublisherConfirmTracker(channel.proxy(), 10);
+        List<CompletableFuture<Void>> confirms = publish(tracker, 3);
+        tracker.handleAck(1, false);
+
+        channel.shutdownListener.shutdownCompleted(new ShutdownSignalException(false, false, null, null));
+
+        assertThat(confirms.get(0)).isCompleted();
+        assertThat(confirms.subList(1, 3)).allSatisfy(c -> assertThatThrownBy(c::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasMessageContaining("Channel closed before confirm"));
+        assertThat(tracker.outstandingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Po maxUnconfirmed publikacja czeka na potwierdzenie i wtedy rusza")
+    void shouldBlockAtMaxUnconfirmed() throws Exception {
+        PublisherConfirmTracker tracker = new PublisherConfirmTracker(channel.proxy(), 2);
+        publish(tracker, 2);
+        CountDownLatch published = new CountDownLatch(1);
+        Thread third = new Thread(() -> {
+            try {
+                tracker.publish("", "orders", null, new byte[0]);
+                published.countDown();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        third.start();
+
+        assertThat(published.await(200, TimeUnit.MILLISECONDS)).isFalse();
+        tracker.handleAck(1, false);
+        assertThat(published.await(5, TimeUnit.SECONDS)).isTrue();
+        third.join(5_000);
+        assertThat(channel.published).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Nieudany basicPublish zwalnia miejsce i nie zostawia wpisu w mapie")
+    void shouldReleaseCapacityWhenPublishFails() throws Exception {
+        PublisherConfirmTracker tracker = new PublisherConfirmTracker(channel.proxy(), 1);
+        channel.publishFailure = new IOException("connection reset");
+
+        assertThatThrownBy(() -> tracker.publish("", "orders", null, new byte[0])).hasMessage("connection reset");
+        assertThat(tracker.outstandingCount()).isZero();
+
+        channel.publishFailure = null;
+        CompletableFuture<Void> confirm = tracker.publish("", "orders", null, new byte[0]);
+        tracker.handleAck(1, false);
+        assertThat(confirm).isCompleted();
+    }
+}
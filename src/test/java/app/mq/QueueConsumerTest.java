@@ -0,0 +1,170 @@
+package app.mq;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayName("QueueConsumer")
+class QueueConsumerTest {
+
+    private static final Duration NO_FLUSH = Duration.ofHours(1);
+
+    /** Kanał bez brokera: zapamiętuje consumera z basicConsume i zapisuje acki / nacki jako tekst. */
+    private static final class FakeChannel {
+        final BlockingQueue<String> calls = new LinkedBlockingQueue<>();
+        volatile Consumer consumer;
+        volatile boolean open = true;
+
+        Channel proxy() {
+            return (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[]{Channel.class},
+                    (p, method, args) -> switch (method.getName()) {
+                        case "basicQos", "basicCancel" -> null;
+                        case "basicConsume" -> {
+                            consumer = (Consumer) args[args.length - 1];
+                            yield "ctag";
+                        }
+                        case "basicAck" -> {
+                            calls.add("ack " + args[0] + " multiple=" + args[1]);
+                            yield null;
+                        }
+                        case "basicNack" -> {
+                            calls.add("nack " + args[0] + " requeue=" + args[2]);
+                            yield null;
+                        }
+                        case "isOpen" -> open;
+                        case "close" -> {
+                            open = false;
+                            yield null;
+                        }
+                        case "hashCode" -> System.identityHashCode(p);
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        void deliver(long tag, boolean redeliver, AMQP.BasicProperties properties, byte[] body) throws Exception {
+            consumer.handleDelivery("ctag", new Envelope(tag, redeliver, "", "orders"), properties, body);
+        }
+
+        void deliver(long tag, boolean redeliver) throws Exception {
+            deliver(tag, redeliver, null, ("m" + tag).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private final FakeChannel channel = new FakeChannel();
+    private final Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class<?>[]{Connection.class}, (p, method, args) -> {
+                if (method.getName().equals("createChannel")) {
+                    return channel.proxy();
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+    private final List<String> handled = new CopyOnWriteArrayList<>();
+    private QueueConsumer consumer;
+
+    @AfterEach
+    void closeConsumer() {
+        if (consumer != null) {
+            consumer.close();
+        }
+    }
+
+    private QueueConsumer start(int ackBatchSize, Duration flushInterval, MessageHandler handler) throws Exception {
+        consumer = new QueueConsumer(connection, "orders", new ConsumerConfig(10, ackBatchSize, flushInterval, 1), handler);
+        consumer.start();
+        return consumer;
+    }
+
+    @Test
+    @DisplayName("Obsłużone wiadomości potwierdza partiami jednym ackiem multiple=true, resztę przy close()")
+    void shouldAckInBatches() throws Exception {
+        start(3, NO_FLUSH, (body, props) -> handled.add(new String(body, StandardCharsets.UTF_8)));
+
+        for (long tag = 1; tag <= 5; tag++) {
+            channel.deliver(tag, false);
+        }
+        assertThat(channel.calls).containsExactly("ack 3 multiple=true");
+
+        consumer.close();
+        consumer = null;
+        assertThat(channel.calls).containsExactly("ack 3 multiple=true", "ack 5 multiple=true");
+        assertThat(handled).containsExactly("m1", "m2", "m3", "m4", "m5");
+    }
+
+    @Test
+    @DisplayName("Niepełną partię potwierdza flush w tle po ackFlushInterval")
+    void shouldFlushPartialBatchInBackground() throws Exception {
+        start(5, Duration.ofMillis(50), (body, props) -> { });
+
+        channel.deliver(1, false);
+        channel.deliver(2, false);
+
+        assertThat(channel.calls.poll(5, TimeUnit.SECONDS)).isEqualTo("ack 2 multiple=true");
+    }
+
+    @Test
+    @DisplayName("Błąd handlera: pierwsze doręczenie wraca do kolejki, ponowne jest odrzucane")
+    void shouldRequeueOnlyFirstDelivery() throws Exception {
+        start(1, NO_FLUSH, (body, props) -> {
+            throw new IllegalStateException("bad message");
+        });
+
+        channel.deliver(1, false);
+        channel.deliver(2, true);
+
+        assertThat(channel.calls).containsExactly("nack 1 requeue=true", "nack 2 requeue=false");
+    }
+
+    @Test
+    @DisplayName("Nack w środku partii nie trafia do zbiorczego acka – ack obejmuje tylko obsłużone")
+    void shouldAckUpToLastHandledAfterNack() throws Exception {
+        start(2, NO_FLUSH, (body, props) -> {
+            if (new String(body, StandardCharsets.UTF_8).equals("m2")) {
+                throw new IllegalStateException("bad message");
+            }
+        });
+
+        channel.deliver(1, false);
+        channel.deliver(2, false);
+        channel.deliver(3, false);
+
+        assertThat(channel.calls).containsExactly("nack 2 requeue=true", "ack 3 multiple=true");
+    }
+
+    @Test
+    @DisplayName("Kopertę rozpakowuje – handler dostaje każdą wiadomość z właściwościami bez nagłówków partii")
+    void shouldUnpackBatchEnvelope() throws Exception {
+        List<AMQP.BasicProperties> properties = new CopyOnWriteArrayList<>();
+        start(1, NO_FLUSH, (body, props) -> {
+            handled.add(new String(body, StandardCharsets.UTF_8));
+            properties.add(props);
+        });
+        byte[] envelope = BatchEnvelope.pack(List.of("a".getBytes(StandardCharsets.UTF_8), "b".getBytes(StandardCharsets.UTF_8)));
+
+        channel.deliver(7, false, BatchEnvelope.properties(2, "application/json"), envelope);
+
+        assertThat(handled).containsExactly("a", "b");
+        assertThat(properties).allSatisfy(p -> {
+            assertThat(p.getContentType()).isEqualTo("application/json");
+            assertThat(p.getHeaders()).isNull();
+        });
+        assertThat(channel.calls).containsExactly("ack 7 multiple=true");
+    }
+}
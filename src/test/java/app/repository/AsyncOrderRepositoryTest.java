@@ -0,0 +1,127 @@
+package app.repository;
+
+import app.model.ProcessedOrder;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("unit")
+@DisplayName("AsyncOrderRepository")
+class AsyncOrderRepositoryTest {
+
+    /** Repozytorium bez bazy – odczyt czeka na {@link #release} i zapamiętuje wątek oraz współbieżność. */
+    private static final class BlockingRepository extends OrderRepository {
+        final CountDownLatch release = new CountDownLatch(1);
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        BlockingRepository() {
+            super(DSL.using(SQLDialect.POSTGRES));
+        }
+
+        @Override
+        public ProcessedOrder findOrderById(UUID id) {
+            threads.add(Thread.currentThread().getName());
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            return new ProcessedOrder(id, BigDecimal.TEN, "PLN", BigDecimal.ONE, BigDecimal.ONE);
+        }
+    }
+
+    @Test
+    @DisplayName("Przy pełnej kolejce future kończy się od razu RejectedExecutionException, kolejka zostaje obsłużona")
+    void shouldRejectWhenQueueIsFull() throws Exception {
+        BlockingRepository repo = new BlockingRepository();
+        try (AsyncOrderRepository async = new AsyncOrderRepository(repo, 1, 2)) {
+            List<CompletableFuture<ProcessedOrder>> accepted = new ArrayList<>();
+            accepted.add(async.findOrderById(UUID.randomUUID()));
+            while (repo.running.get() == 0) {
+                Thread.sleep(5);
+            }
+            accepted.add(async.findOrderById(UUID.randomUUID()));
+            accepted.add(async.findOrderById(UUID.randomUUID()));
+            assertThat(async.queuedCount()).isEqualTo(2);
+
+            CompletableFuture<ProcessedOrder> rejected = async.findOrderById(UUID.randomUUID());
+
+            assertThat(rejected).isCompletedExceptionally();
+            assertThatThrownBy(rejected::get).isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(RejectedExecutionException.class);
+
+            repo.release.countDown();
+            for (CompletableFuture<ProcessedOrder> future : accepted) {
+                assertThat(future.get(5, TimeUnit.SECONDS)).isNotNull();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Wywołania i zależne etapy biegną na wątkach JDBC, najwyżej tylu naraz, ile jest wątków")
+    void shouldCompleteOnJdbcThreads() throws Exception {
+        BlockingRepository repo = new BlockingRepository();
+        try (AsyncOrderRepository async = new AsyncOrderRepository(repo, 2, 100)) {
+            Set<String> stageThreads = ConcurrentHashMap.newKeySet();
+            List<CompletableFuture<ProcessedOrder>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                futures.add(async.findOrderById(UUID.randomUUID())
+                        .thenApply(order -> {
+                            stageThreads.add(Thread.currentThread().getName());
+                            return order;
+                        }));
+            }
+            while (repo.running.get() < 2) {
+                Thread.sleep(5);
+            }
+            assertThat(async.queuedCount()).isEqualTo(8);
+
+            repo.release.countDown();
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+            assertThat(repo.maxRunning).hasValue(2);
+            assertThat(repo.threads).hasSize(2).allMatch(name -> name.startsWith("jdbc-async-"));
+            assertThat(stageThreads).isNotEmpty().allMatch(name -> name.startsWith("jdbc-async-"));
+        }
+    }
+
+    @Test
+    @DisplayName("close() kończy wywołania czekające w kolejce")
+    void shouldFinishQueuedCallsOnClose() throws Exception {
+        BlockingRepository repo = new BlockingRepository();
+        AsyncOrderRepository async = new AsyncOrderRepository(repo, 1, 10);
+        List<CompletableFuture<ProcessedOrder>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(async.findOrderById(UUID.randomUUID()));
+        }
+        repo.release.countDown();
+
+        async.close();
+
+        assertThat(futures).allMatch(f -> f.isDone() && !f.isCompletedExceptionally());
+        assertThat(async.findOrderById(UUID.randomUUID())).isCompletedExceptionally();
+    }
+}
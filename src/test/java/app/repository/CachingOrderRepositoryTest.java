@@ -0,0 +1,208 @@
+package app.repository;
+
+import app.model.ProcessedOrder;
+import org.jooq.DSLContext;
+import org.jooq.Record6;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockDataProvider;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static app.jooq.tables.Orders.ORDERS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("unit")
+@DisplayName("CachingOrderRepository")
+class CachingOrderRepositoryTest {
+
+    private static final UUID ID = UUID.randomUUID();
+    private static final int THREADS = 8;
+
+    /**
+     * Baza w pamięci: każde zapytanie o zamówienie czeka na {@link #release} i zwraca kwotę z chwili startu
+     * (albo rzuca {@link #failure}), licząc wykonania.
+     */
+    private static final class SlowDatabase implements MockDataProvider {
+        final AtomicInteger queries = new AtomicInteger();
+        final AtomicReference<BigDecimal> amount = new AtomicReference<>(new BigDecimal("10.00"));
+        volatile CountDownLatch release = new CountDownLatch(0);
+        volatile SQLException failure;
+
+        @Override
+        public MockResult[] execute(org.jooq.tools.jdbc.MockExecuteContext ctx) throws SQLException {
+            queries.incrementAndGet();
+            // Migawka z początku zapytania, jak w transakcji Postgresa.
+            BigDecimal value = amount.get();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            DSLContext create = DSL.using(SQLDialect.POSTGRES);
+            Result<Record6<UUID, BigDecimal, String, BigDecimal, BigDecimal, OffsetDateTime>> result = create.newResult(
+                    ORDERS.ID, ORDERS.AMOUNT, ORDERS.CURRENCY, ORDERS.VAT_AMOUNT, ORDERS.TOTAL_AMOUNT, ORDERS.CREATED_AT);
+            result.add(create.newRecord(ORDERS.ID, ORDERS.AMOUNT, ORDERS.CURRENCY, ORDERS.VAT_AMOUNT, ORDERS.TOTAL_AMOUNT,
+                    ORDERS.CREATED_AT).values(ID, value, "PLN", null, null, OffsetDateTime.now()));
+            return new MockResult[]{new MockResult(1, result)};
+        }
+    }
+
+    private static CachingOrderRepository cache(SlowDatabase db) {
+        return new CachingOrderRepository(DSL.using(new MockConnection(db), SQLDialect.POSTGRES), 100, Duration.ofMinutes(1));
+    }
+
+    /** Uruchamia THREADS odczytów naraz i czeka, aż wszystkie miną sprawdzenie cache (są w zapytaniu albo na nie czekają). */
+    private static List<Future<ProcessedOrder>> concurrentLookups(CachingOrderRepository cache, ExecutorService pool)
+            throws InterruptedException {
+        List<Future<ProcessedOrder>> lookups = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            lookups.add(pool.submit(() -> cache.findOrderById(ID)));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.cacheStats().misses() < THREADS && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(50);
+        return lookups;
+    }
+
+    @Test
+    @DisplayName("Równoczesne chybienia o to samo ID wykonują jedno zapytanie")
+    void shouldLoadOnceForConcurrentMisses() throws Exception {
+        SlowDatabase db = new SlowDatabase();
+        db.release = new CountDownLatch(1);
+        CachingOrderRepository cache = cache(db);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<ProcessedOrder>> lookups = concurrentLookups(cache, pool);
+
+            db.release.countDown();
+
+            for (Future<ProcessedOrder> lookup : lookups) {
+                assertThat(lookup.get(5, TimeUnit.SECONDS).originalAmount()).isEqualByComparingTo("10.00");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(db.queries).hasValue(1);
+        assertThat(cache.cacheStats().loads()).isEqualTo(1);
+
+        assertThat(cache.findOrderById(ID)).isNotNull();
+        assertThat(db.queries).hasValue(1);
+        assertThat(cache.cacheStats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Czekający na cudzy odczyt dostają oryginalny wyjątek, nie CompletionException")
+    void shouldRethrowLoadFailureUnwrapped() throws Exception {
+        SlowDatabase db = new SlowDatabase();
+        db.release = new CountDownLatch(1);
+        db.failure = new SQLException("connection reset", "08006");
+        CachingOrderRepository cache = cache(db);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Throwable> failures = new ArrayList<>();
+        try {
+            List<Future<ProcessedOrder>> lookups = concurrentLookups(cache, pool);
+
+            db.release.countDown();
+
+            for (Future<ProcessedOrder> lookup : lookups) {
+                assertThatThrownBy(() -> lookup.get(5, TimeUnit.SECONDS))
+                        .satisfies(e -> failures.add(e.getCause()));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(db.queries).hasValue(1);
+        assertThat(failures).hasSize(THREADS)
+                .allSatisfy(e -> assertThat(e).isInstanceOf(DataAccessException.class).isSameAs(failures.get(0)));
+
+        // Błąd nie zostaje w cache – następny odczyt pyta bazę od nowa.
+        db.failure = null;
+        assertThat(cache.findOrderById(ID)).isNotNull();
+        assertThat(db.queries).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Unieważnienie w trakcie odczytu – stary wynik nie trafia do cache")
+    void shouldNotCacheResultOfLoadRacingInvalidation() throws Exception {
+        SlowDatabase db = new SlowDatabase();
+        db.release = new CountDownLatch(1);
+        CachingOrderRepository cache = cache(db);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<ProcessedOrder> stale = pool.submit(() -> cache.findOrderById(ID));
+            while (db.queries.get() == 0) {
+                Thread.sleep(5);
+            }
+
+            // Zapis (przez to repozytorium albo inny proces) zmienia zamówienie, zanim odczyt się zakończy.
+            db.amount.set(new BigDecimal("20.00"));
+            cache.invalidate(ID);
+            db.release.countDown();
+
+            assertThat(stale.get(5, TimeUnit.SECONDS).originalAmount()).isEqualByComparingTo("10.00");
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(cache.cacheStats().size()).isZero();
+        assertThat(cache.findOrderById(ID).originalAmount()).isEqualByComparingTo("20.00");
+        assertThat(db.queries).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("worker.cache.enabled przełącza repozytorium, a statystyki są w JMX")
+    void shouldBeSwitchedByPropertiesAndExposedOverJmx() throws Exception {
+        SlowDatabase db = new SlowDatabase();
+        DSLContext dsl = DSL.using(new MockConnection(db), SQLDialect.POSTGRES);
+        Properties props = new Properties();
+        assertThat(OrderCacheConfig.fromProperties(props).newRepository(dsl)).isNotInstanceOf(CachingOrderRepository.class);
+        props.setProperty("worker.cache.enabled", "true");
+        props.setProperty("worker.cache.size", "5");
+
+        CachingOrderRepository cache = (CachingOrderRepository) OrderCacheConfig.fromProperties(props).newRepository(dsl);
+        cache.findOrderById(ID);
+        cache.findOrderById(ID);
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        cache.register(server, "orders");
+
+        CompositeData stats = (CompositeData) server.getAttribute(
+                new ObjectName(CachingOrderRepository.DOMAIN + ":type=OrderCache,name=\"orders\""), "CacheStats");
+        assertThat(stats.get("hits")).isEqualTo(1L);
+        assertThat(stats.get("misses")).isEqualTo(1L);
+        assertThat(stats.get("size")).isEqualTo(1);
+
+        cache.unregister(server);
+        assertThat(server.queryNames(new ObjectName(CachingOrderRepository.DOMAIN + ":*"), null)).isEmpty();
+    }
+}
@@ -0,0 +1,50 @@
+package app.repository;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import env.ManualEnvironment;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+
+import javax.sql.DataSource;
+import java.util.Properties;
+
+/**
+ * Baza testów repozytorium na prawdziwym Postgresie (środowisko MANUALNE, jak BaseJUnitTest – bez RabbitMQ).
+ */
+abstract class DatabaseTestBase {
+
+    private static ManualEnvironment environment;
+
+    protected static DSLContext dsl;
+    protected static DataSource dataSource;
+
+    @BeforeAll
+    static void setupDatabase() throws Exception {
+        environment = new ManualEnvironment();
+        environment.initOnce();
+        dsl = environment.getDslContext();
+        dataSource = environment.getDataSource();
+    }
+
+    /** Osobna, mała pula do tej samej bazy – do testów zachowania przy wyczerpanej puli. */
+    protected static HikariDataSource newPool(int size) {
+        Properties props = environment.getTestProperties();
+        HikariConfig hc = new HikariConfig();
+        hc.setJdbcUrl("jdbc:postgresql://" + props.getProperty("db.host") + ":" + props.getProperty("db.port")
+                + "/" + props.getProperty("db.name"));
+        hc.setUsername(props.getProperty("db.user"));
+        hc.setPassword(props.getProperty("db.pass"));
+        hc.setMaximumPoolSize(size);
+        hc.setConnectionTimeout(2_000);
+        return new HikariDataSource(hc);
+    }
+
+    @AfterAll
+    static void teardownDatabase() {
+        if (environment != null) {
+            environment.shutdown();
+        }
+    }
+}
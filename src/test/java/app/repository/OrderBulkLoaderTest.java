@@ -0,0 +1,148 @@
+package app.repository;
+
+import app.model.Order;
+import com.zaxxer.hikari.HikariDataSource;
+import org.jooq.ConnectionProvider;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static app.jooq.tables.Orders.ORDERS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("prodlike")
+@DisplayName("OrderBulkLoader")
+class OrderBulkLoaderTest extends DatabaseTestBase {
+
+    private final List<UUID> loaded = new ArrayList<>();
+
+    @AfterEach
+    void deleteLoadedOrders() {
+        new OrderRepository(dsl).deleteOrdersByIds(loaded.stream().map(UUID::toString).toList());
+    }
+
+    private List<Order> orders(int count, String currency) {
+        List<Order> orders = IntStream.range(0, count)
+                .mapToObj(i -> new Order(UUID.randomUUID(), BigDecimal.valueOf(i, 2), currency))
+                .toList();
+        orders.forEach(o -> loaded.add(o.id()));
+        return orders;
+    }
+
+    private static int countLoaded(List<Order> orders) {
+        return dsl.fetchCount(ORDERS, ORDERS.ID.in(orders.stream().map(Order::id).toList()));
+    }
+
+    /**
+     * Połączenia, które nie przyznają się do PGConnection – loader musi wtedy użyć INSERT-ów.
+     */
+    private static DSLContext withoutCopy(HikariDataSource pool) {
+        ConnectionProvider provider = new ConnectionProvider() {
+            @Override
+            public Connection acquire() {
+                try {
+                    Connection connection = pool.getConnection();
+                    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                            new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                                if (method.getName().equals("isWrapperFor")) {
+                                    return false;
+                                }
+                                try {
+                                    return method.invoke(connection, args);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                            });
+                } catch (SQLException e) {
+                    throw new DataAccessException("Could not acquire connection", e);
+                }
+            }
+
+            @Override
+            public void release(Connection connection) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    throw new DataAccessException("Could not release connection", e);
+                }
+            }
+        };
+        return DSL.using(provider, SQLDialect.POSTGRES);
+    }
+
+    @Test
+    @DisplayName("COPY ładuje wszystkie wiersze, także walutę z cudzysłowem i przecinkiem")
+    void shouldLoadThroughCopy() throws Exception {
+        List<Order> orders = orders(5_000, "\"X,");
+
+        BulkLoadResult result = new OrderBulkLoader(dsl).load(orders.stream());
+
+        assertThat(result.copy()).isTrue();
+        assertThat(result.rows()).isEqualTo(5_000);
+        assertThat(countLoaded(orders)).isEqualTo(5_000);
+        Order last = orders.get(orders.size() - 1);
+        assertThat(new OrderRepository(dsl).findOrderById(last.id()))
+                .satisfies(o -> {
+                    assertThat(o.currency()).isEqualTo("\"X,");
+                    assertThat(o.originalAmount()).isEqualByComparingTo(last.amount());
+                });
+    }
+
+    @Test
+    @DisplayName("Błąd w trakcie COPY wycofuje całą partię")
+    void shouldRollBackCopyOnError() {
+        List<Order> orders = orders(3_000, "PLN");
+        Stream<Order> withDuplicate = Stream.concat(orders.stream(), Stream.of(orders.get(0)));
+
+        assertThatThrownBy(() -> new OrderBulkLoader(dsl).load(withDuplicate)).isInstanceOf(SQLException.class);
+
+        assertThat(countLoaded(orders)).isZero();
+    }
+
+    @Test
+    @DisplayName("INSERT bez COPY działa na trzymanym połączeniu – pula o rozmiarze 1 się nie zakleszcza")
+    void shouldInsertOnHeldConnectionWithPoolOfOne() throws Exception {
+        try (HikariDataSource pool = newPool(1)) {
+            List<Order> orders = orders(2_500, "EUR");
+
+            BulkLoadResult result = new OrderBulkLoader(withoutCopy(pool)).load(orders.stream());
+
+            assertThat(result.copy()).isFalse();
+            assertThat(result.rows()).isEqualTo(2_500);
+            assertThat(countLoaded(orders)).isEqualTo(2_500);
+            assertThat(pool.getHikariPoolMXBean().getActiveConnections()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Błąd w INSERT bez COPY wycofuje wszystkie paczki, a połączenie wraca do puli")
+    void shouldRollBackInsertOnError() {
+        try (HikariDataSource pool = newPool(1)) {
+            List<Order> orders = orders(2_500, "EUR");
+            Stream<Order> withDuplicate = Stream.concat(orders.stream(), Stream.of(orders.get(0)));
+
+            assertThatThrownBy(() -> new OrderBulkLoader(withoutCopy(pool)).load(withDuplicate))
+                    .isInstanceOf(DataAccessException.class);
+
+            assertThat(countLoaded(orders)).isZero();
+            assertThat(pool.getHikariPoolMXBean().getActiveConnections()).isZero();
+        }
+    }
+}
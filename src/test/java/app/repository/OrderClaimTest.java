@@ -0,0 +1,134 @@
+package app.repository;
+
+import app.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static app.jooq.tables.Orders.ORDERS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jooq.impl.DSL.inline;
+
+@Tag("prodlike")
+@DisplayName("OrderRepository.claimUnprocessed")
+class OrderClaimTest extends DatabaseTestBase {
+
+    private static final Duration CLAIM_TIMEOUT = Duration.ofHours(1);
+
+    private OrderRepository repo;
+    private List<Order> orders;
+
+    @BeforeEach
+    void insertOrders() throws Exception {
+        repo = new OrderRepository(dsl);
+        // Claim bierze najstarsze oczekujące zamówienia z całej tabeli – test potrzebuje jej na wyłączność.
+        repo.truncateOrdersTable();
+        orders = IntStream.range(0, 2_000)
+                .mapToObj(i -> new Order(UUID.randomUUID(), BigDecimal.valueOf(i, 2), "PLN"))
+                .toList();
+        new OrderBulkLoader(dsl).load(orders.stream());
+    }
+
+    @AfterEach
+    void deleteOrders() {
+        repo.truncateOrdersTable();
+    }
+
+    @Test
+    @DisplayName("Dwóch równoległych workerów nigdy nie dostaje tego samego zamówienia (SKIP LOCKED)")
+    void shouldNotHandOutOrderTwice() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        Callable<List<UUID>> claimer = () -> {
+            start.await();
+            List<UUID> claimed = new ArrayList<>();
+            List<Order> batch;
+            while (!(batch = repo.claimUnprocessed(50, CLAIM_TIMEOUT)).isEmpty()) {
+                batch.forEach(o -> claimed.add(o.id()));
+            }
+            return claimed;
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<UUID>> first = executor.submit(claimer);
+            Future<List<UUID>> second = executor.submit(claimer);
+            start.countDown();
+            List<UUID> a = first.get();
+            List<UUID> b = second.get();
+
+            Set<UUID> overlap = new HashSet<>(a);
+            overlap.retainAll(b);
+            assertThat(overlap).isEmpty();
+            assertThat(a.size() + b.size()).isEqualTo(orders.size());
+            Set<UUID> all = new HashSet<>(a);
+            all.addAll(b);
+            assertThat(all).containsExactlyInAnyOrderElementsOf(orders.stream().map(Order::id).toList());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Zamówienie zajęte dawniej niż claim timeout wraca do puli, świeżo zajęte nie")
+    void shouldReclaimAbandonedOrders() {
+        List<Order> claimed = repo.claimUnprocessed(100, CLAIM_TIMEOUT);
+        assertThat(claimed).hasSize(100);
+        List<UUID> claimedIds = claimed.stream().map(Order::id).toList();
+
+        // Reszta jest wolna, więc kolejne claimy biorą tylko ją.
+        assertThat(repo.claimUnprocessed(orders.size(), CLAIM_TIMEOUT))
+                .hasSize(orders.size() - 100)
+                .extracting(Order::id)
+                .doesNotContainAnyElementsOf(claimedIds);
+        assertThat(repo.claimUnprocessed(orders.size(), CLAIM_TIMEOUT)).isEmpty();
+
+        // Worker, który zajął pierwsze 100, "padł" dwie godziny temu.
+        dsl.update(ORDERS)
+                .set(ORDERS.CLAIMED_AT, OffsetDateTime.now().minusHours(2))
+                .where(ORDERS.ID.in(claimedIds))
+                .execute();
+
+        assertThat(repo.claimUnprocessed(orders.size(), CLAIM_TIMEOUT))
+                .extracting(Order::id)
+                .containsExactlyInAnyOrderElementsOf(claimedIds);
+    }
+
+    @Test
+    @DisplayName("Claim z partycjami zwraca tylko zamówienia z przydzielonych partycji")
+    void shouldClaimOnlyOwnedPartitions() {
+        int partitionCount = 4;
+        Map<UUID, Integer> partitionById = new HashMap<>();
+        dsl.select(ORDERS.ID, OrderRepository.partitionOf(inline(partitionCount)))
+                .from(ORDERS)
+                .forEach(r -> partitionById.put(r.value1(), r.value2()));
+
+        List<Order> claimed = repo.claimUnprocessed(orders.size(), CLAIM_TIMEOUT, partitionCount, new int[]{1, 3});
+
+        assertThat(claimed).isNotEmpty();
+        assertThat(claimed).extracting(o -> partitionById.get(o.id())).containsOnly(1, 3);
+        long expected = partitionById.values().stream().filter(p -> p == 1 || p == 3).count();
+        assertThat(claimed).hasSize((int) expected);
+
+        List<Order> rest = repo.claimUnprocessed(orders.size(), CLAIM_TIMEOUT, partitionCount, new int[]{0, 2});
+        assertThat(claimed.size() + rest.size()).isEqualTo(orders.size());
+        assertThat(repo.claimUnprocessed(orders.size(), CLAIM_TIMEOUT, partitionCount, new int[0])).isEmpty();
+    }
+}
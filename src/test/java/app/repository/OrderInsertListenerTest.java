@@ -0,0 +1,106 @@
+package app.repository;
+
+import app.model.Order;
+import com.zaxxer.hikari.HikariDataSource;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("prodlike")
+@DisplayName("OrderInsertListener")
+class OrderInsertListenerTest extends DatabaseTestBase {
+
+    private static final Duration QUIET = Duration.ofMillis(300);
+    private static final Duration WAIT  = Duration.ofSeconds(5);
+
+    private final List<Order> inserted = new ArrayList<>();
+    private HikariDataSource pool;
+    private OrderInsertListener listener;
+
+    @BeforeEach
+    void startListener() throws Exception {
+        pool = newPool(1);
+        listener = new OrderInsertListener(DSL.using(pool, SQLDialect.POSTGRES));
+        listener.start();
+    }
+
+    @AfterEach
+    void stopListener() {
+        listener.close();
+        pool.close();
+        new OrderRepository(dsl).deleteOrdersByIds(inserted.stream().map(o -> o.id().toString()).toList());
+    }
+
+    @Test
+    @DisplayName("Bez insertów czeka do timeoutu i zwraca false")
+    void shouldTimeOutWithoutInserts() throws Exception {
+        long started = System.nanoTime();
+
+        assertThat(listener.awaitInsert(QUIET)).isFalse();
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(QUIET.minusMillis(50));
+    }
+
+    @Test
+    @DisplayName("Budzi się po insercie wykonanym na innym połączeniu")
+    void shouldWakeUpOnInsert() throws Exception {
+        insert(1);
+
+        assertThat(listener.awaitInsert(WAIT)).isTrue();
+        assertThat(listener.awaitInsert(QUIET)).as("powiadomienie zostało skonsumowane").isFalse();
+    }
+
+    @Test
+    @DisplayName("Powiadomienia z kilku insertów między oczekiwaniami nie giną i budzą raz")
+    void shouldDrainNotificationsQueuedBetweenWaits() throws Exception {
+        insert(1);
+        insert(100);
+        insert(1);
+
+        assertThat(listener.awaitInsert(WAIT)).isTrue();
+        assertThat(listener.awaitInsert(QUIET)).isFalse();
+    }
+
+    @Test
+    @DisplayName("close() zwalnia połączenie do puli i kończy nasłuch")
+    void shouldReleaseConnectionOnClose() throws Exception {
+        listener.close();
+
+        // Pula ma jedno połączenie – bez zwolnienia getConnection czekałby do connectionTimeout.
+        try (Connection c = pool.getConnection()) {
+            assertThat(c.isValid(1)).isTrue();
+        }
+        insert(1);
+        assertThat(pool.getHikariPoolMXBean().getActiveConnections()).isZero();
+
+        // Ponowny start rejestruje LISTEN od nowa.
+        assertThat(listener.awaitInsert(QUIET)).as("insert sprzed ponownego LISTEN").isFalse();
+        insert(1);
+        assertThat(listener.awaitInsert(WAIT)).isTrue();
+    }
+
+    private void insert(int count) throws Exception {
+        List<Order> orders = IntStream.range(0, count)
+                .mapToObj(i -> new Order(UUID.randomUUID(), BigDecimal.ONE, "PLN"))
+                .toList();
+        if (count == 1) {
+            new OrderRepository(dsl).insertOrder(orders.get(0));
+        } else {
+            new OrderBulkLoader(dsl).load(orders.stream());
+        }
+        inserted.addAll(orders);
+    }
+}
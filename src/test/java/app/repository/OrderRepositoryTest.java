@@ -0,0 +1,98 @@
+package app.repository;
+
+import app.model.Order;
+import app.model.OrderStatus;
+import app.model.ProcessedOrder;
+import com.zaxxer.hikari.HikariDataSource;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("prodlike")
+@DisplayName("OrderRepository.streamOrders")
+class OrderRepositoryTest extends DatabaseTestBase {
+
+    private static final int ORDERS = 20_000;
+
+    private static List<Order> orders;
+
+    @BeforeAll
+    static void loadOrders() throws Exception {
+        orders = IntStream.range(0, ORDERS)
+                .mapToObj(i -> new Order(UUID.randomUUID(), BigDecimal.valueOf(i, 2), "PLN"))
+                .toList();
+        new OrderBulkLoader(dsl).load(orders.stream());
+    }
+
+    @AfterAll
+    static void deleteOrders() {
+        new OrderRepository(dsl).deleteOrdersByIds(orders.stream().map(o -> o.id().toString()).toList());
+    }
+
+    @Test
+    @DisplayName("Zwraca wszystkie zamówienia w danym statusie")
+    void shouldStreamAllOrders() {
+        Set<UUID> streamed;
+        try (Stream<ProcessedOrder> stream = new OrderRepository(dsl).streamOrders(OrderStatus.PENDING, 500)) {
+            streamed = stream.map(ProcessedOrder::id).collect(Collectors.toSet());
+        }
+
+        assertThat(streamed).containsAll(orders.stream().map(Order::id).toList());
+    }
+
+    @Test
+    @DisplayName("Czyta kursorem – pierwszy wiersz nie wymaga pobrania całej tabeli")
+    void shouldNotBufferWholeTable() {
+        OrderRepository repo = new OrderRepository(dsl);
+        firstRowAllocation(repo, 100);
+
+        long streaming = firstRowAllocation(repo, 100);
+        long buffered = firstRowAllocation(repo, 1_000_000);
+
+        // Z fetchSize obejmującym całą tabelę sterownik ściąga ~20k wierszy przed pierwszym elementem.
+        assertThat(streaming).isLessThan(buffered / 4);
+    }
+
+    private static long firstRowAllocation(OrderRepository repo, int fetchSize) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        try (Stream<ProcessedOrder> stream = repo.streamOrders(fetchSize)) {
+            assertThat(stream.findFirst()).isPresent();
+            return threads.getCurrentThreadAllocatedBytes() - before;
+        }
+    }
+
+    @Test
+    @DisplayName("Trzyma połączenie do close() i wtedy oddaje je do puli w trybie autocommit")
+    void shouldReleaseConnectionOnClose() throws Exception {
+        try (HikariDataSource pool = newPool(1)) {
+            OrderRepository repo = new OrderRepository(DSL.using(pool, SQLDialect.POSTGRES));
+
+            try (Stream<ProcessedOrder> stream = repo.streamOrders(100)) {
+                assertThat(stream.limit(250).count()).isEqualTo(250);
+                assertThat(pool.getHikariPoolMXBean().getActiveConnections()).isEqualTo(1);
+            }
+
+            assertThat(pool.getHikariPoolMXBean().getActiveConnections()).isZero();
+            try (var connection = pool.getConnection()) {
+                assertThat(connection.getAutoCommit()).isTrue();
+            }
+            assertThat(repo.getUnprocessedCount()).isGreaterThanOrEqualTo(ORDERS);
+        }
+    }
+}
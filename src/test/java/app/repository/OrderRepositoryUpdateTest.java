@@ -0,0 +1,138 @@
+package app.repository;
+
+import app.model.Order;
+import app.model.OrderStatus;
+import app.model.OutboxMessage;
+import app.model.ProcessedOrder;
+import org.jooq.exception.DataAccessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static app.jooq.tables.OrderOutbox.ORDER_OUTBOX;
+import static app.jooq.tables.Orders.ORDERS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("prodlike")
+@DisplayName("OrderRepository – zapis VAT partiami")
+class OrderRepositoryUpdateTest extends DatabaseTestBase {
+
+    /** TOTAL_AMOUNT to numeric(8,2): 900 000,00 + 23% VAT się nie mieści. */
+    private static final BigDecimal OVERFLOWING_AMOUNT = new BigDecimal("900000.00");
+
+    private final List<Order> inserted = new ArrayList<>();
+
+    @AfterEach
+    void deleteOrders() {
+        new OrderRepository(dsl).deleteOrdersByIds(inserted.stream().map(o -> o.id().toString()).toList());
+    }
+
+    @Test
+    @DisplayName("Zapisuje partię większą niż jeden chunk UPDATE razem z wiadomościami outboxu")
+    void shouldUpdateAllChunksWithOutbox() throws Exception {
+        List<ProcessedOrder> processed = insert(2_500, BigDecimal.TEN).stream().map(OrderRepositoryUpdateTest::vat).toList();
+
+        int updated = new OrderRepository(dsl).updateOrdersWithProcessedData(processed, messages(processed));
+
+        assertThat(updated).isEqualTo(processed.size());
+        assertThat(countWithStatus(OrderStatus.PROCESSED)).isEqualTo(processed.size());
+        assertThat(dsl.fetchCount(ORDERS, ORDERS.ID.in(ids()).and(ORDERS.TOTAL_AMOUNT.eq(new BigDecimal("12.30")))))
+                .isEqualTo(processed.size());
+        assertThat(outboxCount()).isEqualTo(processed.size());
+    }
+
+    @Test
+    @DisplayName("Błąd zapisu outboxu wycofuje też UPDATE – oba w jednej transakcji")
+    void shouldRollBackUpdateWhenOutboxFails() throws Exception {
+        List<ProcessedOrder> processed = insert(1_200, BigDecimal.TEN).stream().map(OrderRepositoryUpdateTest::vat).toList();
+        List<OutboxMessage> messages = new ArrayList<>(messages(processed));
+        // Wiadomość dla nieistniejącego zamówienia łamie klucz obcy ORDER_OUTBOX.ORDER_ID.
+        messages.add(OutboxMessage.of(UUID.randomUUID(), "", "order_queue", new byte[]{1}));
+
+        assertThatThrownBy(() -> new OrderRepository(dsl).updateOrdersWithProcessedData(processed, messages))
+                .isInstanceOf(DataAccessException.class);
+
+        assertThat(countWithStatus(OrderStatus.PENDING)).isEqualTo(processed.size());
+        assertThat(outboxCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Zamówienie z przepełnionym TOTAL_AMOUNT trafia do FAILED, reszta partii się zapisuje")
+    void shouldIsolateOverflowingOrder() throws Exception {
+        List<Order> orders = new ArrayList<>(insert(6, BigDecimal.TEN));
+        orders.addAll(3, insert(1, OVERFLOWING_AMOUNT));
+        orders.addAll(insert(3, BigDecimal.ONE));
+        List<ProcessedOrder> processed = orders.stream().map(OrderRepositoryUpdateTest::vat).toList();
+        UUID overflowing = orders.get(3).id();
+
+        OrderRepository repo = new OrderRepository(dsl);
+        assertThatThrownBy(() -> repo.updateOrdersWithProcessedData(processed, messages(processed)))
+                .as("cała partia naraz nie przechodzi")
+                .isInstanceOf(DataAccessException.class);
+
+        List<ProcessedOrder> stored = repo.updateOrdersIsolatingRejected(processed, messages(processed));
+
+        assertThat(stored).hasSize(processed.size() - 1).doesNotContain(processed.get(3));
+        assertThat(stored).containsExactlyElementsOf(processed.stream().filter(po -> !po.id().equals(overflowing)).toList());
+        assertThat(countWithStatus(OrderStatus.PROCESSED)).isEqualTo(stored.size());
+        assertThat(dsl.fetchValue(ORDERS.STATUS, ORDERS.ID.eq(overflowing))).isEqualTo(OrderStatus.FAILED.name());
+        assertThat(outboxCount()).isEqualTo(stored.size());
+        assertThat(dsl.fetchCount(ORDER_OUTBOX, ORDER_OUTBOX.ORDER_ID.eq(overflowing))).isZero();
+    }
+
+    @Test
+    @DisplayName("Zamówienie w FAILED nie jest już zajmowane przez claim")
+    void shouldNotClaimFailedOrder() throws Exception {
+        Order order = insert(1, OVERFLOWING_AMOUNT).get(0);
+        OrderRepository repo = new OrderRepository(dsl);
+
+        assertThat(repo.markFailed(List.of(order.id()))).isEqualTo(1);
+
+        assertThat(repo.claimUnprocessed(Integer.MAX_VALUE, Duration.ZERO))
+                .extracting(Order::id)
+                .doesNotContain(order.id());
+    }
+
+    private List<Order> insert(int count, BigDecimal amount) throws Exception {
+        List<Order> orders = IntStream.range(0, count)
+                .mapToObj(i -> new Order(UUID.randomUUID(), amount, "PLN"))
+                .toList();
+        new OrderBulkLoader(dsl).load(orders.stream());
+        inserted.addAll(orders);
+        return orders;
+    }
+
+    private static ProcessedOrder vat(Order order) {
+        BigDecimal vat = order.amount().multiply(new BigDecimal("0.23")).setScale(2, RoundingMode.HALF_UP);
+        return new ProcessedOrder(order.id(), order.amount(), order.currency(), vat, order.amount().add(vat));
+    }
+
+    private static List<OutboxMessage> messages(List<ProcessedOrder> processed) {
+        return processed.stream()
+                .map(po -> OutboxMessage.of(po.id(), "", "order_queue", po.id().toString().getBytes(StandardCharsets.UTF_8)))
+                .toList();
+    }
+
+    private List<UUID> ids() {
+        return inserted.stream().map(Order::id).toList();
+    }
+
+    private int countWithStatus(OrderStatus status) {
+        return dsl.fetchCount(ORDERS, ORDERS.ID.in(ids()).and(ORDERS.STATUS.eq(status.name())));
+    }
+
+    private int outboxCount() {
+        return dsl.fetchCount(ORDER_OUTBOX, ORDER_OUTBOX.ORDER_ID.in(ids()));
+    }
+}
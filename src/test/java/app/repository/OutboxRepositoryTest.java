@@ -0,0 +1,113 @@
+package app.repository;
+
+import app.model.Order;
+import app.model.OutboxMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("prodlike")
+@DisplayName("OutboxRepository.drain")
+class OutboxRepositoryTest extends DatabaseTestBase {
+
+    private static final int MESSAGES = 10;
+
+    private OrderRepository orders;
+    private OutboxRepository outbox;
+    private List<UUID> orderIds;
+
+    @BeforeEach
+    void enqueueMessages() throws Exception {
+        orders = new OrderRepository(dsl);
+        outbox = new OutboxRepository(dsl);
+        // drain bierze najstarsze wiersze całego outboxa – test potrzebuje go na wyłączność (TRUNCATE ... CASCADE).
+        orders.truncateOrdersTable();
+        List<Order> inserted = IntStream.range(0, MESSAGES)
+                .mapToObj(i -> new Order(UUID.randomUUID(), BigDecimal.ONE, "PLN"))
+                .toList();
+        new OrderBulkLoader(dsl).load(inserted.stream());
+        orderIds = inserted.stream().map(Order::id).toList();
+        OutboxRepository.enqueue(dsl, orderIds.stream()
+                .map(id -> OutboxMessage.of(id, "", "order_queue", id.toString().getBytes(StandardCharsets.UTF_8)))
+                .toList());
+    }
+
+    @AfterEach
+    void deleteOrders() {
+        orders.truncateOrdersTable();
+    }
+
+    @Test
+    @DisplayName("Przekazuje najstarsze wiadomości publisherowi i usuwa je po powrocie")
+    void shouldPublishAndDelete() {
+        List<OutboxMessage> published = new ArrayList<>();
+
+        assertThat(outbox.drain(4, published::addAll)).isEqualTo(4);
+
+        assertThat(published).extracting(OutboxMessage::orderId).containsExactlyElementsOf(orderIds.subList(0, 4));
+        assertThat(published).allSatisfy(m -> {
+            assertThat(m.id()).isNotNull();
+            assertThat(m.orderCreatedAt()).as("czas utworzenia zamówienia do metryki lag").isNotNull();
+            assertThat(new String(m.payload(), StandardCharsets.UTF_8)).isEqualTo(m.orderId().toString());
+        });
+        assertThat(outbox.countPending()).isEqualTo(MESSAGES - 4);
+    }
+
+    @Test
+    @DisplayName("Wyjątek publishera wycofuje transakcję – wiadomości zostają do ponownej próby")
+    void shouldKeepMessagesWhenPublisherThrows() {
+        assertThatThrownBy(() -> outbox.drain(MESSAGES, batch -> {
+            throw new IOException("broker nack");
+        })).hasRootCauseInstanceOf(IOException.class);
+
+        assertThat(outbox.countPending()).isEqualTo(MESSAGES);
+        List<OutboxMessage> retried = new ArrayList<>();
+        assertThat(outbox.drain(MESSAGES, retried::addAll)).isEqualTo(MESSAGES);
+        assertThat(retried).extracting(OutboxMessage::orderId).containsExactlyElementsOf(orderIds);
+        assertThat(outbox.countPending()).isZero();
+    }
+
+    @Test
+    @DisplayName("Dwa równoległe drainy nie dostają tych samych wiadomości (SKIP LOCKED)")
+    void shouldNotRelayMessageTwice() throws Exception {
+        CountDownLatch firstLocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<OutboxMessage> first = new ArrayList<>();
+        CompletableFuture<Integer> blocked = CompletableFuture.supplyAsync(() -> outbox.drain(5, batch -> {
+            first.addAll(batch);
+            firstLocked.countDown();
+            assertThat(release.await(10, TimeUnit.SECONDS)).isTrue();
+        }));
+        assertThat(firstLocked.await(10, TimeUnit.SECONDS)).isTrue();
+
+        List<OutboxMessage> second = new ArrayList<>();
+        int relayed = outbox.drain(MESSAGES, second::addAll);
+        release.countDown();
+
+        assertThat(blocked.get(10, TimeUnit.SECONDS)).isEqualTo(5);
+        assertThat(relayed).isEqualTo(MESSAGES - 5);
+        Set<UUID> all = new HashSet<>();
+        first.forEach(m -> all.add(m.orderId()));
+        second.forEach(m -> assertThat(all.add(m.orderId())).as("wiadomość %s dwa razy", m.orderId()).isTrue());
+        assertThat(all).containsExactlyInAnyOrderElementsOf(orderIds);
+        assertThat(outbox.countPending()).isZero();
+    }
+}
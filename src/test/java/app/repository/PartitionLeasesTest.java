@@ -0,0 +1,189 @@
+package app.repository;
+
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DataSourceConnectionProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("prodlike")
+@DisplayName("PartitionLeases")
+class PartitionLeasesTest extends DatabaseTestBase {
+
+    private static final int PARTITIONS = 8;
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    private final List<PartitionLeases> leases = new ArrayList<>();
+
+    /** Zapamiętuje połączenie wydane z puli, żeby test mógł zepsuć na nim sesję. */
+    private static final class RecordingProvider extends DataSourceConnectionProvider {
+        Connection acquired;
+
+        RecordingProvider(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection acquire() {
+            acquired = super.acquire();
+            return acquired;
+        }
+    }
+
+    @AfterEach
+    void closeLeases() {
+        leases.forEach(PartitionLeases::close);
+    }
+
+    private PartitionLeases leases(DSLContext context) {
+        PartitionLeases l = new PartitionLeases(context, PARTITIONS, NEVER);
+        leases.add(l);
+        return l;
+    }
+
+    private static long heldAdvisoryLocks() {
+        return dsl.fetchSingle("select count(*) from pg_locks where locktype = 'advisory' and granted and classid in ("
+                + PartitionLeases.MEMBER_LOCK_SPACE + ", " + PartitionLeases.PARTITION_LOCK_SPACE + ")").get(0, Long.class);
+    }
+
+    @Test
+    @DisplayName("start() wykonuje pierwszy rebalans synchronicznie – worker startuje z partycjami")
+    void shouldOwnPartitionsRightAfterStart() {
+        PartitionLeases l = leases(dsl);
+
+        l.start();
+
+        assertThat(l.owned()).containsExactly(0, 1, 2, 3, 4, 5, 6, 7);
+        assertThat(l.version()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Druga instancja przejmuje połowę partycji, a po jej odejściu pierwsza dostaje je z powrotem")
+    void shouldRebalanceBetweenMembers() throws Exception {
+        PartitionLeases first = leases(dsl);
+        PartitionLeases second = leases(dsl);
+        first.rebalance();
+
+        second.rebalance();
+        first.rebalance();
+        second.rebalance();
+
+        assertThat(first.owned()).hasSize(PARTITIONS / 2);
+        assertThat(second.owned()).hasSize(PARTITIONS / 2).doesNotContain(first.owned());
+
+        second.close();
+        first.rebalance();
+        assertThat(first.owned()).hasSize(PARTITIONS);
+    }
+
+    @Test
+    @DisplayName("Trzy instancje, 8 partycji: po dołączeniu i odejściu każda partycja ma dokładnie jednego właściciela")
+    void shouldConvergeAfterJoinAndLeave() throws Exception {
+        PartitionLeases a = leases(dsl);
+        PartitionLeases b = leases(dsl);
+        a.rebalance();
+        b.rebalance();
+        a.rebalance();
+        b.rebalance();
+        assertOwnedExactlyOnce(a, b);
+
+        // Dołączenie: runda 1 – każdy zwalnia nadmiar ponad ceil(8/3) = 3, runda 2 – niedobory zbierają wolne partycje.
+        PartitionLeases c = leases(dsl);
+        for (int round = 0; round < 2; round++) {
+            c.rebalance();
+            a.rebalance();
+            b.rebalance();
+        }
+        assertOwnedExactlyOnce(a, b, c);
+        assertThat(List.of(a, b, c)).allSatisfy(l -> assertThat(l.owned()).hasSizeBetween(2, 3));
+
+        // Odejście: nikt nie ma nadmiaru, jedna runda wystarcza, żeby przejąć osierocone partycje.
+        b.close();
+        a.rebalance();
+        c.rebalance();
+        assertOwnedExactlyOnce(a, c);
+        assertThat(a.owned()).hasSize(PARTITIONS / 2);
+        assertThat(c.owned()).hasSize(PARTITIONS / 2);
+    }
+
+    private static void assertOwnedExactlyOnce(PartitionLeases... members) {
+        List<Integer> owned = new ArrayList<>();
+        for (PartitionLeases member : members) {
+            for (int partition : member.owned()) {
+                owned.add(partition);
+            }
+        }
+        assertThat(owned).containsExactlyInAnyOrder(0, 1, 2, 3, 4, 5, 6, 7);
+        assertThat(heldAdvisoryLocks()).isEqualTo(members.length + PARTITIONS);
+    }
+
+    @Test
+    @DisplayName("Zmiana partycji budzi czekającego na awaitChange")
+    void shouldSignalLeaseChange() throws Exception {
+        PartitionLeases l = leases(dsl);
+        long seen = l.version();
+        AtomicLong wokenAfter = new AtomicLong(-1);
+        Thread waiter = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                if (l.awaitChange(seen, Duration.ofSeconds(30))) {
+                    wokenAfter.set(System.nanoTime() - start);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        Thread.sleep(100);
+
+        l.rebalance();
+        waiter.join(5_000);
+
+        assertThat(wokenAfter.get()).isBetween(0L, Duration.ofSeconds(5).toNanos());
+        assertThat(l.awaitChange(l.version(), Duration.ofMillis(50))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Po błędzie sesji locki znikają, a połączenie nie wraca do puli")
+    void shouldNotReturnLockHoldingConnectionToPool() throws Exception {
+        RecordingProvider provider = new RecordingProvider(dataSource);
+        PartitionLeases broken = leases(DSL.using(provider, SQLDialect.POSTGRES));
+        broken.rebalance();
+        assertThat(broken.owned()).hasSize(PARTITIONS);
+        Connection session = provider.acquired;
+        // Przerwana transakcja: sesja żyje i trzyma locki, ale każde kolejne zapytanie (także unlock) kończy się błędem.
+        session.setAutoCommit(false);
+        try (Statement st = session.createStatement()) {
+            assertThatThrownBy(() -> st.execute("select 1 / 0")).isInstanceOf(SQLException.class);
+        }
+
+        broken.rebalanceQuietly();
+
+        assertThat(broken.owned()).isEmpty();
+        assertThat(broken.version()).isEqualTo(2);
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (heldAdvisoryLocks() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(heldAdvisoryLocks()).as("locki zerwanej sesji").isZero();
+
+        PartitionLeases other = leases(dsl);
+        other.rebalance();
+        assertThat(other.owned()).hasSize(PARTITIONS);
+    }
+}
@@ -0,0 +1,107 @@
+package app.repository;
+
+import app.model.OrderStatus;
+import org.jooq.DSLContext;
+import org.jooq.Query;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static app.jooq.tables.Orders.ORDERS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.jooq.impl.DSL.inline;
+import static org.jooq.impl.DSL.param;
+
+@Tag("unit")
+@DisplayName("PreparedQuery")
+class PreparedQueryTest {
+
+    private final DSLContext dsl = DSL.using(SQLDialect.POSTGRES);
+
+    private Query update() {
+        return dsl.update(ORDERS)
+                .set(ORDERS.VAT_AMOUNT, param("vatAmount", BigDecimal.class))
+                .set(ORDERS.TOTAL_AMOUNT, param("totalAmount", BigDecimal.class))
+                .set(ORDERS.STATUS, inline(OrderStatus.PROCESSED.name()))
+                .where(ORDERS.ID.eq(param("id", UUID.class)));
+    }
+
+    @Test
+    @DisplayName("Renderuje SQL raz: parametry jako ?, stałe inline w treści")
+    void shouldRenderPlaceholdersAndInlineConstants() {
+        PreparedQuery query = new PreparedQuery(dsl, update(), "vatAmount", "totalAmount", "id");
+
+        assertThat(query.sql()).containsOnlyOnce("'PROCESSED'");
+        assertThat(query.sql().chars().filter(c -> c == '?')).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Zmieniona kolejność parametrów w zapytaniu kończy się wyjątkiem już w konstruktorze")
+    void shouldRejectChangedParameterOrder() {
+        Query reordered = dsl.update(ORDERS)
+                .set(ORDERS.TOTAL_AMOUNT, param("totalAmount", BigDecimal.class))
+                .set(ORDERS.VAT_AMOUNT, param("vatAmount", BigDecimal.class))
+                .where(ORDERS.ID.eq(param("id", UUID.class)));
+
+        assertThatThrownBy(() -> new PreparedQuery(dsl, reordered, "vatAmount", "totalAmount", "id"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Unexpected bind parameters [totalAmount, vatAmount, id], expected [vatAmount, totalAmount, id]");
+    }
+
+    @Test
+    @DisplayName("Bind bez nazwy (np. val zamiast inline) albo brak parametru też jest wykrywany")
+    void shouldRejectUnnamedOrMissingParameters() {
+        Query withVal = dsl.update(ORDERS)
+                .set(ORDERS.STATUS, DSL.val(OrderStatus.PROCESSED.name()))
+                .where(ORDERS.ID.eq(param("id", UUID.class)));
+
+        assertThatThrownBy(() -> new PreparedQuery(dsl, withVal, "id"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("expected [id]");
+        assertThatThrownBy(() -> new PreparedQuery(dsl, update(), "vatAmount", "totalAmount"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("prepare ustawia wartości po kolei i sprawdza ich liczbę")
+    void shouldBindValuesInOrder() throws SQLException {
+        PreparedQuery query = new PreparedQuery(dsl, update(), "vatAmount", "totalAmount", "id");
+        List<String> calls = new ArrayList<>();
+        PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (p, method, args) -> {
+                    calls.add(method.getName() + (args == null ? "" : List.of(args)));
+                    return null;
+                });
+        List<String> prepared = new ArrayList<>();
+        Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (p, method, args) -> {
+                    if (method.getName().equals("prepareStatement")) {
+                        prepared.add((String) args[0]);
+                        return statement;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        UUID id = UUID.randomUUID();
+
+        assertThat(query.prepare(connection, BigDecimal.ONE, BigDecimal.TEN, id)).isSameAs(statement);
+
+        assertThat(prepared).containsExactly(query.sql());
+        assertThat(calls).containsExactly("setObject[1, 1]", "setObject[2, 10]", "setObject[3, " + id + "]");
+        assertThatThrownBy(() -> query.prepare(connection, BigDecimal.ONE, id))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Expected 3 bind values, got 2");
+        assertThat(prepared).as("przy złej liczbie wartości nic nie przygotowuje").hasSize(1);
+    }
+}
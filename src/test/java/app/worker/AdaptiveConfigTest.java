@@ -0,0 +1,60 @@
+package app.worker;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("unit")
+@DisplayName("AdaptiveConfig – walidacja")
+class AdaptiveConfigTest {
+
+    @Test
+    @DisplayName("Odrzuca niedodatni maksymalny rozmiar partii i niedodatnie czasy")
+    void shouldRejectNonPositiveValues() {
+        assertThatThrownBy(() -> new AdaptiveConfig(true, 0, Duration.ofSeconds(1), Duration.ofMillis(50)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Max batch size");
+        assertThatThrownBy(() -> new AdaptiveConfig(true, 100, Duration.ZERO, Duration.ofMillis(50)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Target latency");
+        assertThatThrownBy(() -> new AdaptiveConfig(false, 100, Duration.ofSeconds(1), Duration.ofMillis(-1)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Min idle poll");
+    }
+
+    @Test
+    @DisplayName("Włączony tryb adaptacyjny wymaga min <= max dla partii i pollingu oraz dodatniego backoffu")
+    void shouldRejectInvertedLimitsWhenEnabled() {
+        Properties props = new Properties();
+        props.setProperty("worker.adaptive.enabled", "true");
+        props.setProperty("worker.batch.size", "500");
+        props.setProperty("worker.adaptive.max.batch.size", "100");
+        assertThatThrownBy(() -> OrderWorkerConfig.fromProperties(props))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("max batch size 100");
+
+        props.setProperty("worker.adaptive.max.batch.size", "1000");
+        props.setProperty("worker.idle.poll.ms", "20");
+        assertThatThrownBy(() -> OrderWorkerConfig.fromProperties(props))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("min idle poll");
+
+        props.setProperty("worker.idle.poll.ms", "5000");
+        props.setProperty("worker.error.backoff.ms", "0");
+        assertThatThrownBy(() -> OrderWorkerConfig.fromProperties(props))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Error backoff");
+
+        props.setProperty("worker.error.backoff.ms", "1000");
+        assertThat(OrderWorkerConfig.fromProperties(props).adaptive().enabled()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Wyłączony tryb adaptacyjny nie ogranicza worker.batch.size")
+    void shouldIgnoreLimitsWhenDisabled() {
+        Properties props = new Properties();
+        props.setProperty("worker.batch.size", "5000");
+
+        assertThat(OrderWorkerConfig.fromProperties(props).batchSize()).isEqualTo(5000);
+    }
+}
@@ -0,0 +1,75 @@
+package app.worker;
+
+import app.model.Order;
+import app.mq.RabbitMqClient;
+import app.repository.OrderRepository;
+import com.rabbitmq.client.ConnectionFactory;
+import org.jooq.SQLDialect;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayName("OrderWorker w trybie PIPELINE")
+class OrderWorkerPipelineTest {
+
+    private static final int CLAIMS = 4;
+    private static final long BACKOFF_MS = 200;
+
+    /** Repozytorium bez bazy – każdy claim kończy się błędem jak przy awarii Postgresa / puli Hikari. */
+    private static final class FailingRepository extends OrderRepository {
+        final List<Long> claimNanos = new CopyOnWriteArrayList<>();
+        final CountDownLatch claimed = new CountDownLatch(CLAIMS);
+
+        FailingRepository() {
+            super(DSL.using(SQLDialect.POSTGRES));
+        }
+
+        @Override
+        public List<Order> claimUnprocessed(int limit, Duration claimTimeout) {
+            claimNanos.add(System.nanoTime());
+            claimed.countDown();
+            throw new DataAccessException("Connection is not available, request timed out");
+        }
+    }
+
+    @Test
+    @DisplayName("Nieudany claim w etapie źródła czeka error backoff zamiast ponawiać w pętli")
+    void shouldThrottleFailingClaims() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("worker.execution.mode", "PIPELINE");
+        props.setProperty("worker.error.backoff.ms", String.valueOf(BACKOFF_MS));
+        FailingRepository repo = new FailingRepository();
+        OrderWorker worker = new OrderWorker(repo, new RabbitMqClient(new ConnectionFactory()), "unused",
+                OrderWorkerConfig.fromProperties(props));
+
+        Thread thread = new Thread(worker, "order-worker-test");
+        thread.start();
+        boolean reached = repo.claimed.await(10, TimeUnit.SECONDS);
+        worker.stop();
+        thread.join(10_000);
+
+        assertThat(reached).as("worker powinien ponawiać claim").isTrue();
+        assertThat(thread.isAlive()).as("worker powinien się zatrzymać").isFalse();
+        // Każda kolejna próba dopiero po backoffie; bez niego odstępy byłyby rzędu mikrosekund.
+        List<Long> nanos = List.copyOf(repo.claimNanos);
+        for (int i = 1; i < CLAIMS; i++) {
+            assertThat(TimeUnit.NANOSECONDS.toMillis(nanos.get(i) - nanos.get(i - 1)))
+                    .as("odstęp między próbą %d a %d", i, i + 1)
+                    .isGreaterThanOrEqualTo(BACKOFF_MS);
+        }
+        // Ostatnią próbę przerywa stop() w trakcie backoffu – nie liczy się jako błąd etapu.
+        assertThat(worker.pipelineStats().get(0).failed()).isBetween(nanos.size() - 1L, (long) nanos.size());
+    }
+}
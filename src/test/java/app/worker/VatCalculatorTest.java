@@ -0,0 +1,149 @@
+package app.worker;
+
+import app.model.Order;
+import app.model.ProcessedOrder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("unit")
+@DisplayName("VatCalculator")
+class VatCalculatorTest {
+
+    private static Order order(String amount) {
+        return new Order(UUID.randomUUID(), new BigDecimal(amount), "PLN");
+    }
+
+    @ParameterizedTest(name = "{0}: {1} -> VAT {2}, total {3}")
+    @CsvSource({
+            // przypadki z order_processing.feature
+            "BIGDECIMAL, 10.90, 2.51, 13.41",
+            "FIXED_POINT, 10.90, 2.51, 13.41",
+            "FIXED_POINT, 10.87, 2.50, 13.37",
+            "FIXED_POINT, 10.86, 2.50, 13.36",
+            "FIXED_POINT, 4.34, 1.00, 5.34",
+            "FIXED_POINT, 4.35, 1.00, 5.35",
+            // VAT dokładnie na .005 – HALF_UP w górę
+            "FIXED_POINT, 0.50, 0.12, 0.62",
+            "FIXED_POINT, 1.50, 0.35, 1.85",
+            "VERIFY, 2.50, 0.58, 3.08",
+            // skala mniejsza niż 2 – wynik i tak w groszach
+            "FIXED_POINT, 0, 0.00, 0.00",
+            "FIXED_POINT, 10, 2.30, 12.30",
+            "FIXED_POINT, 10.5, 2.42, 12.92",
+            "FIXED_POINT, 1E+3, 230.00, 1230.00",
+            // skala powyżej 2 – BigDecimal (VAT liczony od pełnej kwoty, total zaokrąglony raz)
+            "FIXED_POINT, 10.005, 2.30, 12.31",
+            "FIXED_POINT, 0.0050, 0.00, 0.01",
+            "VERIFY, 99.999, 23.00, 123.00",
+            // największa kwota ORDERS (NUMERIC(8,2)) i okolice limitu long
+            "FIXED_POINT, 999999.99, 230000.00, 1229999.99",
+            "FIXED_POINT, 9999999999999.99, 2300000000000.00, 12299999999999.99",
+            "FIXED_POINT, 10000000000000.00, 2300000000000.00, 12300000000000.00",
+            "FIXED_POINT, 92233720368547758.07, 21213755684765984.36, 113447476053313742.43",
+            "VERIFY, 92233720368547758.07, 21213755684765984.36, 113447476053313742.43"
+    })
+    @DisplayName("Liczy VAT 23% z zaokrągleniem HALF_UP do groszy")
+    void shouldComputeVatHalfUp(VatEngine engine, String amount, String vat, String total) {
+        ProcessedOrder processed = new VatCalculator(engine).apply(order(amount));
+
+        // equals, nie compareTo – skala wyniku też musi być 2, jak w ścieżce BigDecimal
+        assertThat(processed.vatAmount()).isEqualTo(new BigDecimal(vat));
+        assertThat(processed.totalAmount()).isEqualTo(new BigDecimal(total));
+        assertThat(processed.originalAmount()).isEqualTo(new BigDecimal(amount));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"10.005, 1", "10000000000000.00, 1", "92233720368547758.07, 1", "999999.99, 0", "1E+3, 0"})
+    @DisplayName("Kwoty spoza zakresu ścieżki groszowej liczy BigDecimal i zlicza jako fallback")
+    void shouldCountFallbacks(String amount, long fallbacks) {
+        VatCalculator calculator = new VatCalculator(VatEngine.FIXED_POINT);
+        Order order = order(amount);
+
+        ProcessedOrder processed = calculator.apply(order);
+
+        assertThat(calculator.fallbackCount()).isEqualTo(fallbacks);
+        assertThat(processed).isEqualTo(VatCalculator.bigDecimal(order));
+    }
+
+    @Test
+    @DisplayName("Ujemnej kwoty nie da się przetworzyć – Order odrzuca ją wcześniej (wzór groszowy zakłada c >= 0)")
+    void shouldRejectNegativeAmounts() {
+        assertThatThrownBy(() -> order("-10.00")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> order("-0.01")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @ParameterizedTest
+    @EnumSource(VatEngine.class)
+    @DisplayName("Każda kwota od 0.00 do 10 000.00 co grosz – wynik identyczny z BigDecimal")
+    void shouldMatchBigDecimalForEveryCent(VatEngine engine) {
+        VatCalculator calculator = new VatCalculator(engine);
+        UUID id = UUID.randomUUID();
+        for (long cents = 0; cents <= 1_000_000; cents++) {
+            Order order = new Order(id, BigDecimal.valueOf(cents, 2), "PLN");
+            assertThat(calculator.apply(order)).isEqualTo(VatCalculator.bigDecimal(order));
+        }
+        assertThat(calculator.mismatchCount()).isZero();
+        assertThat(calculator.fallbackCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("VERIFY – losowe kwoty o skalach -3..4 i do 17 cyfr bez rozbieżności")
+    void shouldFindNoMismatchesForRandomAmounts() {
+        VatCalculator calculator = new VatCalculator(VatEngine.VERIFY);
+        Random random = new Random(42);
+        for (int i = 0; i < 500_000; i++) {
+            long unscaled = Math.abs(random.nextLong()) / (long) Math.pow(10, random.nextInt(19));
+            calculator.apply(new Order(UUID.randomUUID(), BigDecimal.valueOf(unscaled, random.nextInt(8) - 3), "PLN"));
+        }
+        assertThat(calculator.mismatchCount()).isZero();
+        assertThat(calculator.fallbackCount()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Odczyt groszy jest dokładny na granicy obsługiwanego zakresu")
+    void shouldReadCentsExactly() {
+        Random random = new Random(7);
+        long max = (long) Math.pow(10, VatCalculator.MAX_INTEGER_DIGITS + 2);
+        for (int i = 0; i < 1_000_000; i++) {
+            long cents = i < 1000 ? max - 1 - i : Math.floorMod(random.nextLong(), max);
+            assertThat(VatCalculator.cents(BigDecimal.valueOf(cents, 2))).isEqualTo(cents);
+            assertThat(VatCalculator.cents(BigDecimal.valueOf(cents / 10, 1))).isEqualTo(cents / 10 * 10);
+        }
+    }
+
+    @Test
+    @DisplayName("Odczyt groszy nie alokuje")
+    void shouldReadCentsWithoutAllocating() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        BigDecimal[] amounts = new BigDecimal[1024];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = BigDecimal.valueOf(i * 7919L, 2);
+        }
+        long sum = 0;
+        for (int i = 0; i < 100_000; i++) {
+            sum += VatCalculator.cents(amounts[i & 1023]);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            sum += VatCalculator.cents(amounts[i & 1023]);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertThat(sum).isPositive();
+        // movePointRight tworzyłby BigDecimal (~40 B) na każde wywołanie – tu kilka MB.
+        assertThat(allocated).isLessThan(10_000);
+    }
+}
@@ -0,0 +1,50 @@
+package app.worker;
+
+import app.mq.RabbitMqClient;
+import app.repository.OrderRepository;
+import com.rabbitmq.client.ConnectionFactory;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayName("WorkerMetrics w JMX")
+class WorkerMetricsTest {
+
+    @Test
+    @DisplayName("Statystyki adaptacyjne są w JMX także w trybie SEQUENTIAL – jednym spójnym atrybutem")
+    void shouldExposeAdaptiveStatsOverJmx() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("worker.execution.mode", "SEQUENTIAL");
+        props.setProperty("worker.batch.size", "25");
+        props.setProperty("worker.error.backoff.ms", "300");
+        OrderWorker worker = new OrderWorker(new OrderRepository(DSL.using(SQLDialect.POSTGRES)),
+                new RabbitMqClient(new ConnectionFactory()), "unused", OrderWorkerConfig.fromProperties(props));
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+
+        worker.metrics().register(server, "orders");
+
+        CompositeData stats = (CompositeData) server.getAttribute(
+                new ObjectName(WorkerMetrics.DOMAIN + ":type=OrderWorker,name=\"orders\",component=adaptive"), "Stats");
+        AdaptiveStats expected = worker.adaptiveStats();
+        assertThat(stats.get("batchSize")).isEqualTo(25);
+        assertThat(stats.get("errorBackoffMillis")).isEqualTo(300L);
+        assertThat(stats.get("idleWaitMillis")).isEqualTo(expected.idleWaitMillis());
+        assertThat(stats.get("grows")).isEqualTo(0L);
+        assertThat(server.queryNames(new ObjectName(WorkerMetrics.DOMAIN + ":type=OrderWorker,name=\"orders\",*"), null))
+                .hasSize(6);
+
+        worker.metrics().unregister(server);
+        assertThat(server.queryNames(new ObjectName(WorkerMetrics.DOMAIN + ":*"), null)).isEmpty();
+    }
+}
@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -60,22 +61,39 @@ public abstract class AbstractTestEnvironment {
     protected abstract void doShutdown();
 
     /**
-     * Wspólna metoda do załadowania schematu bazy (V1) z resources/db/migration.
+     * Kolejne migracje schematu z resources/db/migration, w kolejności wykonywania.
+     * Każdy skrypt musi być idempotentny – schemat nakładany jest przy każdym starcie.
+     */
+    private static final List<String> MIGRATIONS = List.of(
+            "db/migration/V1__create_order_table.sql",
+            "db/migration/V2__add_order_claim.sql",
+            "db/migration/V3__notify_on_order_insert.sql",
+            "db/migration/V4__create_order_outbox.sql",
+            "db/migration/V5__add_outbox_content_type.sql",
+            "db/migration/V6__add_order_status.sql"
+    );
+
+    /**
+     * Wspólna metoda do załadowania schematu bazy (V1..Vn) z resources/db/migration.
      */
     public static void applySchema(DataSource dataSource) {
         Logger logger = LoggerFactory.getLogger(AbstractTestEnvironment.class);
         try (var conn = dataSource.getConnection();
-             var stmt = conn.createStatement();
-             InputStream in = AbstractTestEnvironment.class
-                     .getClassLoader()
-                     .getResourceAsStream("db/migration/V1__create_order_table.sql")) {
-
-            if (in == null) {
-                throw new IllegalStateException("Nie znaleziono zasobu db/migration/V1__create_order_table.sql");
+             var stmt = conn.createStatement()) {
+
+            for (String migration : MIGRATIONS) {
+                try (InputStream in = AbstractTestEnvironment.class
+                        .getClassLoader()
+                        .getResourceAsStream(migration)) {
+
+                    if (in == null) {
+                        throw new IllegalStateException("Nie znaleziono zasobu " + migration);
+                    }
+                    byte[] sqlBytes = in.readAllBytes();
+                    stmt.execute(new String(sqlBytes, StandardCharsets.UTF_8));
+                    logger.info("🗄️  Załadowano migrację schematu bazy: {}.", migration);
+                }
             }
-            byte[] sqlBytes = in.readAllBytes();
-            stmt.execute(new String(sqlBytes, StandardCharsets.UTF_8));
-            logger.info("🗄️  Załadowano schemat bazy (V1).");
 
             try (var checkStmt = conn.createStatement()) {
                 var rs = checkStmt.executeQuery("SELECT to_regclass('public.\"ORDERS\"');"); // Sprawdź, czy tabela istnieje w schemacie public
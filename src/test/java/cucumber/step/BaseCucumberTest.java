@@ -1,9 +1,15 @@
 package cucumber.step;
 
+import app.mq.OutboxRelay;
 import app.mq.RabbitMqClient;
+import app.repository.OrderCacheConfig;
+import app.repository.OrderInsertListener;
 import app.repository.OrderRepository;
+import app.repository.OutboxRepository;
 import env.TestcontainersEnvironment;
+import app.worker.DeliveryMode;
 import app.worker.OrderWorker;
+import app.worker.OrderWorkerConfig;
 import io.cucumber.java.AfterAll;
 import io.cucumber.java.BeforeAll;
 import io.cucumber.java.Before;
@@ -30,6 +36,8 @@ public class BaseCucumberTest {
 
     public static Thread workerThread;
     public static OrderWorker worker;
+    private static OutboxRelay outboxRelay;
+    private static Thread outboxRelayThread;
 
 
     @BeforeAll
@@ -38,7 +46,9 @@ public class BaseCucumberTest {
         testcontainersEnvironment = new TestcontainersEnvironment();
         testcontainersEnvironment.initOnce();
 
-        repo = new OrderRepository(testcontainersEnvironment.getDslContext());
+        // Kroki i worker dzielą jedno repozytorium – zapisy workera unieważniają cache, z którego czytają kroki.
+        repo = OrderCacheConfig.fromProperties(testcontainersEnvironment.getTestProperties())
+                .newRepository(testcontainersEnvironment.getDslContext());
         rmqClient = new RabbitMqClient(testcontainersEnvironment.getRabbitMqConnectionFactory());
 
         queueName = testcontainersEnvironment.getTestProperties().getProperty("app.queue.name");
@@ -47,9 +57,19 @@ public class BaseCucumberTest {
         dbSteps = new DatabaseSteps(repo);
         mqSteps = new RabbitMqSteps(rmqClient, queueName);
 
-        worker = new OrderWorker(repo, rmqClient, queueName);
+        OrderWorkerConfig workerConfig = OrderWorkerConfig.fromProperties(testcontainersEnvironment.getTestProperties());
+        OrderInsertListener insertListener = workerConfig.listenForInserts()
+                ? new OrderInsertListener(testcontainersEnvironment.getDslContext())
+                : null;
+        worker = new OrderWorker(repo, rmqClient, queueName, workerConfig, insertListener);
         workerThread = new Thread(worker, "test-order-worker-thread");
         workerThread.start();
+        if (workerConfig.deliveryMode() == DeliveryMode.OUTBOX) {
+            outboxRelay = OutboxRelay.fromProperties(new OutboxRepository(testcontainersEnvironment.getDslContext()),
+                    rmqClient, testcontainersEnvironment.getTestProperties());
+            outboxRelayThread = new Thread(outboxRelay, "test-outbox-relay-thread");
+            outboxRelayThread.start();
+        }
         log.info("--- Cucumber @BeforeAll: OrderWorker uruchomiony w wątku testowym. ---");
         log.info("--- Cucumber @BeforeAll: Środowisko Testcontainers, repo, rmqClient, klasy kroków oraz worker zainicjalizowane. ---");
     }
@@ -82,6 +102,15 @@ public class BaseCucumberTest {
             }
         }
 
+        if (outboxRelay != null) {
+            outboxRelay.stop();
+            try {
+                outboxRelayThread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
         if (rmqClient != null) {
             log.info("--- Cucumber @AfterAll: Zamykam połączenie z RabbitMQ ---");
             rmqClient.close();
@@ -0,0 +1,64 @@
+package load;
+
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Parameters of {@link OrderLoadRunner} ({@code load.*} keys).
+ *
+ * @param environment   MANUAL (docker-compose up / local services) or TESTCONTAINERS
+ * @param orders        orders injected in total
+ * @param rate          orders per second to inject; 0 = as fast as the bulk loader goes
+ * @param insertChunk   most orders per COPY, i.e. per insert transaction
+ * @param workers       OrderWorker instances in this JVM, each with its own RabbitMQ connection
+ * @param reportInterval how often a line of the time series is logged and written to {@code reportFile}
+ * @param drainTimeout  how long to wait for the last messages after the injection finished
+ * @param truncate      empty ORDERS and purge the queue before the run
+ * @param reportFile    CSV with the time series; empty = none
+ */
+public record LoadConfig(Environment environment,
+                         int orders,
+                         int rate,
+                         int insertChunk,
+                         int workers,
+                         Duration reportInterval,
+                         Duration drainTimeout,
+                         boolean truncate,
+                         String reportFile) {
+
+    public enum Environment { MANUAL, TESTCONTAINERS }
+
+    public LoadConfig {
+        if (orders <= 0) {
+            throw new IllegalArgumentException("Order count must be positive: " + orders);
+        }
+        if (rate < 0) {
+            throw new IllegalArgumentException("Rate cannot be negative: " + rate);
+        }
+        if (insertChunk <= 0) {
+            throw new IllegalArgumentException("Insert chunk must be positive: " + insertChunk);
+        }
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive: " + workers);
+        }
+        if (reportInterval == null || reportInterval.isNegative() || reportInterval.isZero()) {
+            throw new IllegalArgumentException("Report interval must be positive: " + reportInterval);
+        }
+        if (drainTimeout == null || drainTimeout.isNegative()) {
+            throw new IllegalArgumentException("Drain timeout cannot be negative: " + drainTimeout);
+        }
+    }
+
+    public static LoadConfig fromProperties(Properties props) {
+        return new LoadConfig(
+                Environment.valueOf(props.getProperty("load.environment", "MANUAL").trim().toUpperCase()),
+                Integer.parseInt(props.getProperty("load.orders", "100000").trim()),
+                Integer.parseInt(props.getProperty("load.rate", "0").trim()),
+                Integer.parseInt(props.getProperty("load.insert.chunk", "10000").trim()),
+                Integer.parseInt(props.getProperty("load.workers", "1").trim()),
+                Duration.ofMillis(Long.parseLong(props.getProperty("load.report.ms", "1000").trim())),
+                Duration.ofMillis(Long.parseLong(props.getProperty("load.drain.timeout.ms", "120000").trim())),
+                Boolean.parseBoolean(props.getProperty("load.truncate", "true").trim()),
+                props.getProperty("load.report.file", "target/load-report.csv").trim());
+    }
+}
@@ -0,0 +1,340 @@
+package load;
+
+import app.metrics.LatencyHistogram;
+import app.metrics.LatencySnapshot;
+import app.model.Order;
+import app.mq.ChannelPoolConfig;
+import app.mq.ConsumerConfig;
+import app.mq.MessageFormat;
+import app.mq.OrderLagRecorder;
+import app.mq.OutboxRelay;
+import app.mq.QueueConsumer;
+import app.mq.RabbitMqClient;
+import app.repository.BulkLoadResult;
+import app.repository.OrderBulkLoader;
+import app.repository.OrderInsertListener;
+import app.repository.CachingOrderRepository;
+import app.repository.OrderCacheConfig;
+import app.repository.OrderRepository;
+import app.repository.OutboxRepository;
+import app.repository.PartitionLeases;
+import app.worker.DeliveryMode;
+import app.worker.OrderWorker;
+import app.worker.OrderWorkerConfig;
+import com.rabbitmq.client.AMQP;
+import common.AbstractTestEnvironment;
+import env.ManualEnvironment;
+import env.TestcontainersEnvironment;
+import org.jooq.DSLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end throughput test: OrderWorker(s) + Postgres + RabbitMQ in one run.
+ * Injects {@code load.orders} orders at {@code load.rate}/s with COPY, consumes the queue and reports every
+ * {@code load.report.ms}: injected / consumed orders, backlog (pending rows in ORDERS and injected-but-not-consumed),
+ * throughput and end-to-end latency (insert → consume, from the insert time embedded in each order ID).
+ * Worker settings come from test.properties ({@code worker.*}); any key of it can be overridden with {@code -D},
+ * so modes are compared by re-running, e.g. {@code -Dworker.execution.mode=PIPELINE -Dload.workers=2}.
+ * Not a JUnit test on purpose – run it with {@code mvn -Pload test-compile exec:java}.
+ */
+public class OrderLoadRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderLoadRunner.class);
+
+    private static final String   CONFIG_FILE_NAME = "test.properties";
+    private static final Duration INJECT_TICK = Duration.ofMillis(100);
+    private static final Duration POLL = Duration.ofMillis(20);
+    private static final Duration RECENT_WINDOW = Duration.ofSeconds(10);
+    private static final Duration TOTAL_WINDOW = Duration.ofHours(1);
+
+    private final AbstractTestEnvironment environment;
+    private final Properties              props;
+    private final LoadConfig              config;
+    private final OrderWorkerConfig       workerConfig;
+    private final String                  queueName;
+
+    private final AtomicLong injected = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    /** Opóźnienie insert → consume: ostatnie sekundy do szeregu czasowego, całość do podsumowania. */
+    private final LatencyHistogram recentLatency = new LatencyHistogram(RECENT_WINDOW, 5);
+    private final LatencyHistogram totalLatency = new LatencyHistogram(TOTAL_WINDOW, 6);
+    private final OrderLagRecorder lag = new OrderLagRecorder(TOTAL_WINDOW);
+
+    public OrderLoadRunner(AbstractTestEnvironment environment, Properties props) {
+        this.environment = environment;
+        this.props = props;
+        this.config = LoadConfig.fromProperties(props);
+        this.workerConfig = OrderWorkerConfig.fromProperties(props);
+        this.queueName = props.getProperty("app.queue.name");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Properties props = new Properties();
+        props.load(OrderLoadRunner.class.getClassLoader().getResourceAsStream(CONFIG_FILE_NAME));
+        System.getProperties().stringPropertyNames().stream()
+                .filter(key -> key.startsWith("load.") || key.startsWith("worker.") || key.startsWith("outbox.")
+                        || key.startsWith("rabbitmq.") || key.startsWith("app."))
+                .forEach(key -> props.setProperty(key, System.getProperty(key)));
+
+        AbstractTestEnvironment environment = LoadConfig.fromProperties(props).environment() == LoadConfig.Environment.TESTCONTAINERS
+                ? new TestcontainersEnvironment()
+                : new ManualEnvironment();
+        // Środowiska czytają test.properties same – nadpisania z -D muszą trafić też do nich.
+        environment.getTestProperties().putAll(props);
+        environment.initOnce();
+        try {
+            LoadSummary summary = new OrderLoadRunner(environment, props).run();
+            log.info("Load test finished: {}", summary);
+            if (!summary.drained()) {
+                throw new IllegalStateException("Queue not drained within " + summary.config().drainTimeout()
+                        + ": " + summary.consumed() + " of " + summary.injected() + " orders consumed");
+            }
+        } finally {
+            environment.shutdown();
+        }
+    }
+
+    public LoadSummary run() throws Exception {
+        DSLContext dsl = environment.getDslContext();
+        OrderRepository repo = OrderCacheConfig.fromProperties(props).newRepository(dsl);
+        log.info("Load test: {}", config);
+        log.info("Worker config: {}", workerConfig);
+
+        RabbitMqClient consumerClient = new RabbitMqClient(environment.getRabbitMqConnectionFactory());
+        consumerClient.connectAndDeclareQueue(queueName);
+        if (config.truncate()) {
+            repo.truncateOrdersTable();
+            consumerClient.clearQueue();
+        }
+
+        List<Runnable> closers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        List<OrderWorker> workers = new ArrayList<>();
+        try (PrintWriter report = openReport()) {
+            QueueConsumer consumer = consumerClient.startConsumer(queueName, ConsumerConfig.defaults(),
+                    lag.wrap(this::onConsumed));
+            closers.add(consumer::close);
+
+            for (int i = 0; i < config.workers(); i++) {
+                workers.add(startWorker(dsl, repo, i, threads, closers));
+            }
+            if (workerConfig.deliveryMode() == DeliveryMode.OUTBOX) {
+                RabbitMqClient relayClient = newPublisherClient();
+                closers.add(relayClient::close);
+                OutboxRelay relay = OutboxRelay.fromProperties(new OutboxRepository(dsl), relayClient, props);
+                threads.add(start(relay, "outbox-relay"));
+                closers.add(relay::stop);
+            }
+
+            long start = System.nanoTime();
+            Thread injector = start(() -> inject(dsl, start), "load-injector");
+            threads.add(injector);
+
+            long reportNanos = config.reportInterval().toNanos();
+            long lastReport = start;
+            long lastConsumed = 0;
+            long drainDeadline = Long.MAX_VALUE;
+            while (consumed.get() < config.orders()) {
+                Thread.sleep(POLL.toMillis());
+                long now = System.nanoTime();
+                if (now - lastReport >= reportNanos) {
+                    lastConsumed = report(report, repo, start, lastReport, lastConsumed, now);
+                    lastReport = now;
+                }
+                if (drainDeadline == Long.MAX_VALUE && !injector.isAlive()) {
+                    drainDeadline = now + config.drainTimeout().toNanos();
+                }
+                if (now >= drainDeadline) {
+                    break;
+                }
+            }
+            long end = System.nanoTime();
+            if (consumed.get() != lastConsumed) {
+                report(report, repo, start, lastReport, lastConsumed, end);
+            }
+            Duration elapsed = Duration.ofNanos(end - start);
+
+            log.info("Worker metrics:");
+            for (int i = 0; i < workers.size(); i++) {
+                log.info("  worker-{}: {}", i, workers.get(i).metrics());
+            }
+            log.info("Lag: {}", lag);
+            if (repo instanceof CachingOrderRepository caching) {
+                log.info("Order cache: {}", caching.cacheStats());
+            }
+            if (report != null) {
+                log.info("Time series written to {}", config.reportFile());
+            }
+            return new LoadSummary(config, injected.get(), consumed.get(), elapsed, totalLatency.snapshot());
+        } finally {
+            workers.forEach(OrderWorker::stop);
+            for (Thread thread : threads) {
+                thread.interrupt();
+                thread.join(5000);
+            }
+            closers.forEach(OrderLoadRunner::closeQuietly);
+            consumerClient.close();
+        }
+    }
+
+    private OrderWorker startWorker(DSLContext dsl, OrderRepository repo, int index, List<Thread> threads,
+                                    List<Runnable> closers) throws Exception {
+        RabbitMqClient mq = newPublisherClient();
+        closers.add(mq::close);
+        OrderInsertListener insertListener = workerConfig.listenForInserts() ? new OrderInsertListener(dsl) : null;
+        if (insertListener != null) {
+            closers.add(insertListener::close);
+        }
+        PartitionLeases partitionLeases = workerConfig.partitionCount() > 0
+                ? new PartitionLeases(dsl, workerConfig.partitionCount(), workerConfig.partitionRebalanceInterval())
+                : null;
+        if (partitionLeases != null) {
+            closers.add(partitionLeases::close);
+        }
+        OrderWorker worker = new OrderWorker(repo, mq, queueName, workerConfig, insertListener, partitionLeases);
+        threads.add(start(worker, "order-worker-" + index));
+        return worker;
+    }
+
+    private RabbitMqClient newPublisherClient() throws Exception {
+        RabbitMqClient mq = new RabbitMqClient(environment.getRabbitMqConnectionFactory(),
+                ChannelPoolConfig.fromProperties(props));
+        mq.connectAndDeclareQueue(queueName);
+        return mq;
+    }
+
+    /**
+     * Injects orders in COPY chunks so that {@code injected} follows {@code rate * elapsed}.
+     */
+    private void inject(DSLContext dsl, long start) {
+        OrderBulkLoader loader = new OrderBulkLoader(dsl);
+        try {
+            while (injected.get() < config.orders() && !Thread.currentThread().isInterrupted()) {
+                long due = config.rate() == 0
+                        ? config.orders()
+                        : Math.min(config.orders(), (System.nanoTime() - start) * config.rate() / 1_000_000_000L);
+                int chunk = (int) Math.min(config.insertChunk(), due - injected.get());
+                if (chunk <= 0) {
+                    Thread.sleep(INJECT_TICK.toMillis());
+                    continue;
+                }
+                BulkLoadResult result = loader.load(Stream.generate(OrderLoadRunner::randomOrder).limit(chunk));
+                injected.addAndGet(result.rows());
+                log.debug("Injected {}", result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Order injection failed after {} orders: {}", injected.get(), e.getMessage(), e);
+        }
+    }
+
+    private void onConsumed(byte[] body, AMQP.BasicProperties properties) throws IOException {
+        consumed.incrementAndGet();
+        UUID id = MessageFormat.of(properties).decode(body).id();
+        long nanos = Math.max(0, System.currentTimeMillis() - (id.getMostSignificantBits() >>> 16)) * 1_000_000;
+        recentLatency.record(nanos);
+        totalLatency.record(nanos);
+    }
+
+    /**
+     * Logs one line of the time series (and writes it to the CSV); throughput is over the time since the last line.
+     *
+     * @return consumed orders at the time of this line
+     */
+    private long report(PrintWriter report, OrderRepository repo, long start, long lastReport, long lastConsumed,
+                        long now) {
+        long injectedNow = injected.get();
+        long consumedNow = consumed.get();
+        int pending = repo.getUnprocessedCount();
+        double elapsed = (now - start) / 1e9;
+        double consumedPerSecond = now == lastReport ? 0.0 : (consumedNow - lastConsumed) * 1e9 / (now - lastReport);
+        LatencySnapshot latency = recentLatency.snapshot();
+        log.info(String.format("t=%6.1fs injected=%d consumed=%d backlog=%d pending=%d throughput=%.0f/s latency[%s]",
+                elapsed, injectedNow, consumedNow, injectedNow - consumedNow, pending, consumedPerSecond, latency));
+        if (report != null) {
+            report.printf(Locale.ROOT, "%.3f,%d,%d,%d,%d,%.1f,%d,%d,%d%n",
+                    elapsed, injectedNow, consumedNow, injectedNow - consumedNow, pending, consumedPerSecond,
+                    latency.p50Micros(), latency.p99Micros(), latency.maxMicros());
+            report.flush();
+        }
+        return consumedNow;
+    }
+
+    private PrintWriter openReport() throws IOException {
+        if (config.reportFile().isEmpty()) {
+            return null;
+        }
+        Path path = Path.of(config.reportFile());
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        PrintWriter report = new PrintWriter(Files.newBufferedWriter(path));
+        report.println("elapsed_s,injected,consumed,backlog,pending,throughput_per_s,latency_p50_us,latency_p99_us,latency_max_us");
+        return report;
+    }
+
+    /**
+     * ID w układzie UUIDv7 – pierwsze 48 bitów to czas wygenerowania (ms), czyli chwila wstawienia z dokładnością
+     * do jednego COPY. Konsument liczy z niego opóźnienie end-to-end w każdym trybie, także dla kopert bez nagłówków.
+     * Kwoty do 10 000.00 – TOTAL_AMOUNT (numeric(8,2)) musi zmieścić też VAT.
+     */
+    private static Order randomOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        UUID id = new UUID(System.currentTimeMillis() << 16 | 0x7000 | random.nextInt(0x1000),
+                random.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L);
+        return new Order(id, BigDecimal.valueOf(random.nextInt(1, 1_000_000), 2), random.nextInt(4) == 0 ? "EUR" : "PLN");
+    }
+
+    private static Thread start(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void closeQuietly(Runnable closer) {
+        try {
+            closer.run();
+        } catch (RuntimeException e) {
+            log.warn("Problem while closing load test resources: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param latency insert → consume over the whole run
+     */
+    public record LoadSummary(LoadConfig config, long injected, long consumed, Duration elapsed,
+                              LatencySnapshot latency) {
+
+        public boolean drained() {
+            return consumed >= injected && injected >= config.orders();
+        }
+
+        public double throughputPerSecond() {
+            return elapsed.isZero() ? 0.0 : consumed * 1_000_000_000.0 / elapsed.toNanos();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d of %d orders consumed in %.1fs (%.0f/s), latency[%s]",
+                    consumed, injected, elapsed.toNanos() / 1e9, throughputPerSecond(), latency);
+        }
+    }
+}
@@ -1,9 +1,19 @@
 // src/main/java/worker/OrderWorkerMain.java
 package worker;
 
+import app.mq.ChannelPoolConfig;
+import app.mq.OutboxRelay;
 import app.mq.RabbitMqClient;
+import app.repository.CachingOrderRepository;
+import app.repository.OrderCacheConfig;
+import app.repository.OrderInsertListener;
 import app.repository.OrderRepository;
+import app.repository.OutboxRepository;
+import app.repository.PartitionLeases;
+import app.worker.DeliveryMode;
 import app.worker.OrderWorker;
+import app.worker.OrderWorkerConfig;
+import app.worker.WorkerMetrics;
 import com.rabbitmq.client.ConnectionFactory;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
@@ -17,6 +27,7 @@ import org.slf4j.LoggerFactory;
 import javax.sql.DataSource;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.util.Properties;
 
 public class OrderWorkerMain {
@@ -48,7 +59,11 @@ public class OrderWorkerMain {
         AbstractTestEnvironment.applySchema(currentDataSource);
 
         DSLContext dslContext = DSL.using(currentDataSource, SQLDialect.POSTGRES);
-        OrderRepository repo = new OrderRepository(dslContext);
+        OrderRepository repo = OrderCacheConfig.fromProperties(appProps).newRepository(dslContext);
+        if (repo instanceof CachingOrderRepository caching) {
+            caching.register(ManagementFactory.getPlatformMBeanServer(), appProps.getProperty("app.queue.name"));
+            log.info("OrderWorkerMain: Cache zamówień włączony, statystyki w JMX pod {}:type=OrderCache.", CachingOrderRepository.DOMAIN);
+        }
         log.info("OrderWorkerMain: Połączono z bazą danych i załadowano schemat: {}", dbUrl);
 
         String rmqHost = appProps.getProperty("rabbitmq.host");
@@ -57,20 +72,50 @@ public class OrderWorkerMain {
         String rmqPass = appProps.getProperty("rabbitmq.pass");
         String queueName = appProps.getProperty("app.queue.name");
 
-        RabbitMqClient mq = new RabbitMqClient(createRabbitMqConnectionFactory(rmqHost, rmqPort, rmqUser, rmqPass));
+        ChannelPoolConfig channelPoolConfig = ChannelPoolConfig.fromProperties(appProps);
+        RabbitMqClient mq = new RabbitMqClient(createRabbitMqConnectionFactory(rmqHost, rmqPort, rmqUser, rmqPass),
+                channelPoolConfig);
         mq.connectAndDeclareQueue(queueName);
         log.info("OrderWorkerMain: Połączono z RabbitMQ: {}:{} dla kolejki {}", rmqHost, rmqPort, queueName);
 
-        OrderWorker worker = new OrderWorker(repo, mq, queueName);
+        OrderWorkerConfig workerConfig = OrderWorkerConfig.fromProperties(appProps);
+        if (!appProps.containsKey("worker.max.concurrency")) {
+            // Wirtualne wątki tylko publikują – tyle publikacji naraz, ile kanałów w puli publishera.
+            workerConfig = workerConfig.withMaxConcurrency(channelPoolConfig.channels());
+        }
+        log.info("OrderWorkerMain: Konfiguracja workera: {}", workerConfig);
+
+        OrderInsertListener insertListener = workerConfig.listenForInserts() ? new OrderInsertListener(dslContext) : null;
+        PartitionLeases partitionLeases = workerConfig.partitionCount() > 0
+                ? new PartitionLeases(dslContext, workerConfig.partitionCount(), workerConfig.partitionRebalanceInterval())
+                : null;
+        OrderWorker worker = new OrderWorker(repo, mq, queueName, workerConfig, insertListener, partitionLeases);
+        worker.metrics().register(ManagementFactory.getPlatformMBeanServer(), queueName);
+        log.info("OrderWorkerMain: Metryki opóźnień i statystyki adaptacyjne w JMX pod {}:type=OrderWorker,name=\"{}\".", WorkerMetrics.DOMAIN, queueName);
         Thread t = new Thread(worker, "order-worker");
         t.start();
         log.info("OrderWorker running – CTRL-C aby zakończyć.");
 
+        OutboxRelay relay = null;
+        Thread relayThread = null;
+        if (workerConfig.deliveryMode() == DeliveryMode.OUTBOX) {
+            relay = OutboxRelay.fromProperties(new OutboxRepository(dslContext), mq, appProps);
+            relayThread = new Thread(relay, "outbox-relay");
+            relayThread.start();
+            log.info("OutboxRelay running.");
+        }
+        OutboxRelay finalRelay = relay;
+        Thread finalRelayThread = relayThread;
+
         // --- Shutdown Hook ---
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             log.info("OrderWorkerMain: Zamykanie workera...");
             worker.stop();
             try { t.join(5000); } catch (InterruptedException ignored) {}
+            if (finalRelay != null) {
+                finalRelay.stop();
+                try { finalRelayThread.join(5000); } catch (InterruptedException ignored) {}
+            }
             mq.close();
             if (currentDataSource instanceof HikariDataSource hikari) {
                 hikari.close();
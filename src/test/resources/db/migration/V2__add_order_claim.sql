@@ -0,0 +1,2 @@
+-- V2__add_order_claim.sql
+alter table "ORDERS" add column if not exists "CLAIMED_AT" timestamp with time zone;
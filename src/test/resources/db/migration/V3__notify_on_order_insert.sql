@@ -0,0 +1,16 @@
+-- V3__notify_on_order_insert.sql
+-- Budzi workery (LISTEN orders_inserted) zaraz po wstawieniu zamówień.
+-- Jedno powiadomienie na instrukcję, więc masowe inserty nie zalewają kanału.
+/* [jooq ignore start] */
+create or replace function orders_notify_insert() returns trigger as $$
+begin
+    perform pg_notify('orders_inserted', '');
+    return null;
+end;
+$$ language plpgsql;
+
+drop trigger if exists orders_notify_insert on "ORDERS";
+create trigger orders_notify_insert
+    after insert on "ORDERS"
+    for each statement execute function orders_notify_insert();
+/* [jooq ignore stop] */
@@ -0,0 +1,10 @@
+-- V4__create_order_outbox.sql
+-- Wiadomości do wysłania, zapisywane w tej samej transakcji co VAT (tryb worker.delivery.mode=OUTBOX).
+create table if not exists "ORDER_OUTBOX" (
+    "ID"          bigserial    primary key,
+    "ORDER_ID"    uuid         not null references "ORDERS" ("ID") on delete cascade,
+    "EXCHANGE"    varchar(255) not null,
+    "ROUTING_KEY" varchar(255) not null,
+    "PAYLOAD"     bytea        not null,
+    "CREATED_AT"  timestamp with time zone not null default now()
+);
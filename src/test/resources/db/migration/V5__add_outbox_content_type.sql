@@ -0,0 +1,3 @@
+-- V5__add_outbox_content_type.sql
+-- Format wiadomości (AMQP content-type) zapisany razem z payloadem; null = JSON.
+alter table "ORDER_OUTBOX" add column if not exists "CONTENT_TYPE" varchar(255);
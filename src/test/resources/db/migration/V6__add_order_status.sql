@@ -0,0 +1,18 @@
+-- V6__add_order_status.sql
+-- Jawny status przetwarzania zamiast "VAT_AMOUNT is null" + znaczniki czasu.
+-- Indeks częściowy obejmuje tylko zamówienia czekające na przetworzenie, więc claim i licznik
+-- nie rosną razem z liczbą przetworzonych wierszy.
+alter table "ORDERS" add column if not exists "STATUS"       varchar(16) not null default 'PENDING';
+alter table "ORDERS" add column if not exists "CREATED_AT"   timestamp with time zone not null default now();
+alter table "ORDERS" add column if not exists "PROCESSED_AT" timestamp with time zone;
+
+/* [jooq ignore start] */
+-- Wiersze przetworzone przed migracją.
+update "ORDERS"
+   set "STATUS" = 'PROCESSED', "PROCESSED_AT" = coalesce("CLAIMED_AT", now())
+ where "STATUS" = 'PENDING' and "VAT_AMOUNT" is not null;
+
+create index if not exists "ORDERS_PENDING_IDX"
+    on "ORDERS" ("CREATED_AT", "ID") include ("CLAIMED_AT")
+    where "STATUS" = 'PENDING';
+/* [jooq ignore stop] */